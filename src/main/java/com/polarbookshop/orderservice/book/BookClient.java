@@ -1,6 +1,7 @@
 package com.polarbookshop.orderservice.book;
 
 import com.polarbookshop.orderservice.config.ClientProperties;
+import com.polarbookshop.orderservice.monitoring.LatencyTracker;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
@@ -8,30 +9,83 @@ import reactor.core.publisher.Mono;
 import reactor.util.retry.Retry;
 
 import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Component
 public class BookClient {
     private static final String BOOKS_ROOT_API = "/books/";
+    //nombre d'échantillons de latence conservés et minimum requis avant d'adapter le timeout
+    private static final int LATENCY_WINDOW = 1024;
+    private static final int MIN_LATENCY_SAMPLES = 20;
+    //marge appliquée au percentile pour ne pas couper les appels juste au-dessus
+    private static final double TIMEOUT_HEADROOM = 1.5;
     private final WebClient webClient;
     private final ClientProperties clientProperties;
+    private final LatencyTracker latencyTracker;
+    private final RetryBudget retryBudget;
 
     public BookClient(WebClient webClient, ClientProperties clientProperties) {
         this.webClient = webClient;
         this.clientProperties = clientProperties;
+        this.latencyTracker = new LatencyTracker(LATENCY_WINDOW, clientProperties.timeoutPercentile());
+        this.retryBudget = new RetryBudget(clientProperties.retryBudgetRatio());
     }
 
     //utilisation de l'API fluent fournie par WebClient
     public Mono<Book> getBookByIsbn(String bookIsbn) {
-        return webClient
-                .get()
-                .uri(BOOKS_ROOT_API+bookIsbn)
-                .retrieve()
-                .bodyToMono(Book.class)
-               // .timeout(Duration.ofSeconds(3),Mono.empty())
-                .timeout(Duration.ofSeconds(clientProperties.timeout()),Mono.empty())
-                .onErrorResume(WebClientResponseException.NotFound.class, exception->Mono.empty())
-               // .retryWhen(Retry.backoff(3, Duration.ofMillis(100)))
-                .retryWhen(Retry.backoff(clientProperties.maxRetry(), Duration.ofMillis(clientProperties.retryBackoff())))
-                .onErrorResume(Exception.class, exception -> Mono.empty());
+        return Mono.defer(() -> {
+            //retries déjà effectués pour cet appel
+            var retries = new AtomicLong();
+            return fetchBook(bookIsbn)
+                   // .timeout(Duration.ofSeconds(3),Mono.empty())
+                    .onErrorResume(WebClientResponseException.NotFound.class, exception->Mono.empty())
+                   // .retryWhen(Retry.backoff(3, Duration.ofMillis(100)))
+                    .retryWhen(Retry.backoff(clientProperties.maxRetry(), Duration.ofMillis(clientProperties.retryBackoff()))
+                            .jitter(clientProperties.retryJitter())
+                            //un retry n'a lieu que s'il reste du budget : pas de tempête de retries quand catalog-service est en difficulté
+                            //le filtre est évalué avant le contrôle de maxRetry : pas de jeton consommé pour l'échec final
+                            .filter(exception -> retries.get() < clientProperties.maxRetry() && retryBudget.tryAcquire())
+                            .doBeforeRetry(signal -> retries.incrementAndGet()))
+                    .onErrorResume(Exception.class, exception -> Mono.empty());
+        }).doOnSubscribe(subscription -> retryBudget.recordCall());
+    }
+
+    //une tentative : le timeout est recalculé à chaque (re)souscription
+    private Mono<Book> fetchBook(String bookIsbn) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return webClient
+                    .get()
+                    .uri(BOOKS_ROOT_API+bookIsbn)
+                    .retrieve()
+                    .bodyToMono(Book.class)
+                    .doOnSuccess(book -> recordLatency(start))
+                    .doOnError(WebClientResponseException.class, exception -> recordLatency(start))
+                    .timeout(currentTimeout())
+                    //un appel coupé compte comme un appel lent : le timeout remonte si les coupures se multiplient
+                    //l'erreur est propagée pour que la tentative soit rejouée dans la limite du budget de retry
+                    .doOnError(TimeoutException.class, exception -> latencyTracker.record(timeoutCeiling().toMillis()));
+        });
+    }
+
+    //percentile des latences récentes x marge, borné par [timeoutFloor, timeout]
+    public Duration currentTimeout() {
+        if (latencyTracker.size() < MIN_LATENCY_SAMPLES) { return timeoutCeiling(); }
+        long adaptive = (long) (latencyTracker.percentile() * TIMEOUT_HEADROOM);
+        return Duration.ofMillis(Math.min(timeoutCeiling().toMillis(), Math.max(clientProperties.timeoutFloor(), adaptive)));
+    }
+
+    public RetryBudget retryBudget() {
+        return retryBudget;
+    }
+
+    private Duration timeoutCeiling() {
+        return Duration.ofSeconds(clientProperties.timeout());
+    }
+
+    private void recordLatency(long start) {
+        latencyTracker.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
     }
 }
@@ -0,0 +1,31 @@
+package com.polarbookshop.orderservice.book;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+//métriques de résilience des appels vers catalog-service
+@Component
+public class BookClientMetrics implements MeterBinder {
+    private final BookClient bookClient;
+
+    public BookClientMetrics(BookClient bookClient) {
+        this.bookClient = bookClient;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("polar.catalog.timeout", bookClient, client -> client.currentTimeout().toMillis())
+                .description("Current adaptive timeout of catalog-service calls")
+                .baseUnit("milliseconds")
+                .register(registry);
+        FunctionCounter.builder("polar.catalog.retry.budget.acquired", bookClient.retryBudget(), RetryBudget::acquiredCount)
+                .description("Retries allowed by the catalog-service retry budget")
+                .register(registry);
+        FunctionCounter.builder("polar.catalog.retry.budget.exhausted", bookClient.retryBudget(), RetryBudget::exhaustedCount)
+                .description("Retries denied because the catalog-service retry budget was exhausted")
+                .register(registry);
+    }
+}
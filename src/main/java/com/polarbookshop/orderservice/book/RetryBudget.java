@@ -0,0 +1,81 @@
+package com.polarbookshop.orderservice.book;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Budget de retry partagé par tous les appels vers catalog-service :
+ * sur une fenêtre glissante de WINDOW_SECONDS secondes, les retries sont limités à ratio x nombre d'appels
+ * (avec un minimum pour que les retries restent possibles à faible trafic).
+ * Quand catalog-service est en difficulté, le budget s'épuise et les appels échouent au lieu de multiplier la charge.
+ */
+public class RetryBudget {
+    static final int WINDOW_SECONDS = 10;
+    static final int MIN_RETRIES_PER_WINDOW = 10;
+
+    private final double ratio;
+    private final LongSupplier nanoClock;
+    private final long[] calls = new long[WINDOW_SECONDS];
+    private final long[] retries = new long[WINDOW_SECONDS];
+    private long currentSecond;
+    private long exhausted;
+    private long acquired;
+
+    public RetryBudget(double ratio) {
+        this(ratio, System::nanoTime);
+    }
+
+    RetryBudget(double ratio, LongSupplier nanoClock) {
+        this.ratio = ratio;
+        this.nanoClock = nanoClock;
+        this.currentSecond = second();
+    }
+
+    //un appel "logique" (hors retries) vers catalog-service
+    public synchronized void recordCall() {
+        calls[slot()]++;
+    }
+
+    //true si un retry est autorisé (et consommé), false si le budget est épuisé
+    public synchronized boolean tryAcquire() {
+        int slot = slot();
+        long windowCalls = 0;
+        long windowRetries = 0;
+        for (int i = 0; i < WINDOW_SECONDS; i++) {
+            windowCalls += calls[i];
+            windowRetries += retries[i];
+        }
+        if (windowRetries >= Math.max(MIN_RETRIES_PER_WINDOW, ratio * windowCalls)) {
+            exhausted++;
+            return false;
+        }
+        retries[slot]++;
+        acquired++;
+        return true;
+    }
+
+    public synchronized long exhaustedCount() {
+        return exhausted;
+    }
+
+    public synchronized long acquiredCount() {
+        return acquired;
+    }
+
+    //index du compteur de la seconde courante, après remise à zéro des secondes sorties de la fenêtre
+    private int slot() {
+        long now = second();
+        long elapsed = Math.min(now - currentSecond, WINDOW_SECONDS);
+        for (long i = 1; i <= elapsed; i++) {
+            int expired = (int) Math.floorMod(currentSecond + i, WINDOW_SECONDS);
+            calls[expired] = 0;
+            retries[expired] = 0;
+        }
+        currentSecond = now;
+        return (int) Math.floorMod(now, WINDOW_SECONDS);
+    }
+
+    private long second() {
+        return TimeUnit.NANOSECONDS.toSeconds(nanoClock.getAsLong());
+    }
+}
@@ -14,6 +14,17 @@ public record ClientProperties(
         @NotNull
         long maxRetry,
         @NotNull
-        long retryBackoff
+        long retryBackoff,
+        //timeout adaptatif : percentile des latences récentes de catalog-service, borné par timeoutFloor (ms) et timeout (s)
+        @NotNull
+        long timeoutFloor,
+        @NotNull
+        double timeoutPercentile,
+        //budget de retry : retries limités à ce ratio des appels récents
+        @NotNull
+        double retryBudgetRatio,
+        //facteur de jitter appliqué au backoff exponentiel (0 à 1)
+        @NotNull
+        double retryJitter
 ) {
 }
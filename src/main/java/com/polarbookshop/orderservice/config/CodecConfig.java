@@ -0,0 +1,16 @@
+package com.polarbookshop.orderservice.config;
+
+import com.polarbookshop.orderservice.order.web.OrderJsonEncoder;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class CodecConfig {
+
+    //l'encodeur dédié à Order est enregistré avant l'encodeur Jackson par défaut
+    @Bean
+    CodecCustomizer orderJsonCodecCustomizer() {
+        return configurer -> configurer.customCodecs().register(new OrderJsonEncoder());
+    }
+}
@@ -0,0 +1,27 @@
+package com.polarbookshop.orderservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "polar.consumer-lane")
+public record ConsumerLaneProperties(
+        //threads du scheduler dédié au traitement des messages order-dispatched
+        int schedulerThreads,
+        //messages traités simultanément = quota de connexions R2DBC utilisables par le consommateur
+        int concurrency,
+        //SLO de latence des requêtes HTTP (p99) au-delà duquel le consommateur est mis en pause
+        Duration httpLatencySlo,
+        //intervalle d'évaluation du SLO
+        Duration checkInterval,
+        //nombre min de requêtes HTTP sur l'intervalle pour que le SLO soit évalué
+        int minHttpSamples
+) {
+    public ConsumerLaneProperties {
+        if (schedulerThreads <= 0) { schedulerThreads = 2; }
+        if (concurrency <= 0) { concurrency = 3; }
+        if (httpLatencySlo == null) { httpLatencySlo = Duration.ofMillis(500); }
+        if (checkInterval == null) { checkInterval = Duration.ofSeconds(5); }
+        if (minHttpSamples <= 0) { minHttpSamples = 20; }
+    }
+}
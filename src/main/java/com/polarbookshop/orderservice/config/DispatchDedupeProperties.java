@@ -0,0 +1,18 @@
+package com.polarbookshop.orderservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "polar.dispatch-dedupe")
+public record DispatchDedupeProperties(
+        //nombre max d'ids de commandes mémorisés
+        int capacity,
+        //durée pendant laquelle un message order-dispatched pour le même id est considéré comme un doublon
+        Duration window
+) {
+    public DispatchDedupeProperties {
+        if (capacity <= 0) { capacity = 65_536; }
+        if (window == null) { window = Duration.ofMinutes(5); }
+    }
+}
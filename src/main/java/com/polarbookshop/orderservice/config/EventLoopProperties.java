@@ -0,0 +1,20 @@
+package com.polarbookshop.orderservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "polar.event-loop")
+public record EventLoopProperties(
+        //intervalle entre 2 sondes de latence envoyées sur chaque event loop
+        Duration probeInterval,
+        //mode de détection des appels bloquants (BlockHound) - à réserver aux environnements de test / recette
+        boolean blockingDetection,
+        //nombre max d'appels bloquants distincts conservés pour l'endpoint actuator
+        int maxRecordedBlockingCalls
+) {
+    public EventLoopProperties {
+        if (probeInterval == null) { probeInterval = Duration.ofSeconds(1); }
+        if (maxRecordedBlockingCalls <= 0) { maxRecordedBlockingCalls = 100; }
+    }
+}
@@ -0,0 +1,22 @@
+package com.polarbookshop.orderservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "polar.order-cache")
+public record OrderCacheProperties(
+        boolean enabled,
+        //mémoire max estimée occupée par les listes de commandes en cache (éviction au-delà)
+        DataSize maxMemory,
+        //durée de vie max d'une liste en cache, filet de sécurité en cas d'invalidation manquée
+        Duration expireAfterWrite,
+        //diffusion des invalidations aux autres instances via RabbitMQ
+        boolean broadcast
+) {
+    public OrderCacheProperties {
+        if (maxMemory == null) { maxMemory = DataSize.ofMegabytes(32); }
+        if (expireAfterWrite == null) { expireAfterWrite = Duration.ofMinutes(10); }
+    }
+}
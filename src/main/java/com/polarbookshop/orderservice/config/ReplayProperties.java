@@ -0,0 +1,18 @@
+package com.polarbookshop.orderservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "polar.replay")
+public record ReplayProperties(
+        //nombre de messages publiés par lot (= taille de page du parcours de la table orders)
+        int batchSize,
+        //pause entre 2 lots : débit max = batchSize / batchInterval
+        Duration batchInterval
+) {
+    public ReplayProperties {
+        if (batchSize <= 0) { batchSize = 100; }
+        if (batchInterval == null) { batchInterval = Duration.ofSeconds(1); }
+    }
+}
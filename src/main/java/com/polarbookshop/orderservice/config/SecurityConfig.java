@@ -2,8 +2,10 @@ package com.polarbookshop.orderservice.config;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.security.config.Customizer;
 import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter;
+import org.springframework.security.oauth2.server.resource.authentication.ReactiveJwtAuthenticationConverter;
+import org.springframework.security.oauth2.server.resource.authentication.ReactiveJwtGrantedAuthoritiesConverterAdapter;
 import org.springframework.security.web.server.SecurityWebFilterChain;
 import org.springframework.security.web.server.savedrequest.NoOpServerRequestCache;
 
@@ -14,12 +16,25 @@ public class SecurityConfig {
     SecurityWebFilterChain springWebFilterChain(ServerHttpSecurity http) {
         return http
                 .authorizeExchange(exchange ->exchange
+                                                .pathMatchers("/actuator/health", "/actuator/health/**").permitAll()//sondes liveness / readiness de Kubernetes
+                                                //endpoints d'exploitation (rejeu, rééquilibrage, appels bloquants) réservés aux employés
+                                                .pathMatchers("/actuator/orderreplay/**", "/actuator/shards/**", "/actuator/blockingcalls/**").hasRole("employee")
                                                 .anyExchange().authenticated()//API accessible à tous les utilisateurs authentifiés
                 )
-                .oauth2ResourceServer(oauth2-> oauth2.jwt(Customizer.withDefaults()))//support de l'authentification JWT
+                .oauth2ResourceServer(oauth2-> oauth2.jwt(jwt -> jwt.jwtAuthenticationConverter(jwtAuthenticationConverter())))//support de l'authentification JWT
                 .requestCache(requestCacheSpec ->requestCacheSpec
                                         .requestCache(NoOpServerRequestCache.getInstance()))//pas de cache de session à maintenir car toutes les req doivent inclure l'access token
                 .csrf(ServerHttpSecurity.CsrfSpec::disable)
                 .build();
     }
+
+    //les rôles Keycloak de l'utilisateur (claim "roles") deviennent des autorités ROLE_xxx
+    private static ReactiveJwtAuthenticationConverter jwtAuthenticationConverter() {
+        var grantedAuthoritiesConverter = new JwtGrantedAuthoritiesConverter();
+        grantedAuthoritiesConverter.setAuthorityPrefix("ROLE_");
+        grantedAuthoritiesConverter.setAuthoritiesClaimName("roles");
+        var jwtAuthenticationConverter = new ReactiveJwtAuthenticationConverter();
+        jwtAuthenticationConverter.setJwtGrantedAuthoritiesConverter(new ReactiveJwtGrantedAuthoritiesConverterAdapter(grantedAuthoritiesConverter));
+        return jwtAuthenticationConverter;
+    }
 }
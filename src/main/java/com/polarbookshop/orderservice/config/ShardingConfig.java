@@ -0,0 +1,72 @@
+package com.polarbookshop.orderservice.config;
+
+import com.polarbookshop.orderservice.shard.ShardMigrations;
+import com.polarbookshop.orderservice.shard.ShardRebalancer;
+import com.polarbookshop.orderservice.shard.ShardRing;
+import com.polarbookshop.orderservice.shard.ShardRoutingConnectionFactory;
+import com.polarbookshop.orderservice.shard.ShardsEndpoint;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+
+import java.util.List;
+
+/**
+ * Répartition des commandes sur plusieurs bases Postgres (shards) par hachage consistant de createdBy.
+ * Quand polar.sharding.enabled=false, la ConnectionFactory auto-configurée par Spring Boot est utilisée.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "polar.sharding", name = "enabled", havingValue = "true")
+public class ShardingConfig {
+
+    @Bean
+    ShardRing shardRing(ShardingProperties shardingProperties) {
+        return new ShardRing(shardingProperties.shards().size(), shardingProperties.virtualNodes());
+    }
+
+    @Bean
+    ShardMigrations shardMigrations(ShardingProperties shardingProperties) {
+        return new ShardMigrations(shardingProperties.shards());
+    }
+
+    //remplace la ConnectionFactory auto-configurée : un pool par shard, derrière une factory de routage
+    @Bean(destroyMethod = "dispose")
+    @DependsOn("shardMigrations")
+    ShardRoutingConnectionFactory connectionFactory(ShardingProperties shardingProperties, R2dbcProperties r2dbcProperties, ShardRing shardRing) {
+        List<ConnectionFactory> pools = shardingProperties.shards().stream()
+                .map(shard -> (ConnectionFactory) pool(shard, r2dbcProperties.getPool()))
+                .toList();
+        return new ShardRoutingConnectionFactory(shardRing, pools);
+    }
+
+    @Bean
+    ShardRebalancer shardRebalancer(ShardRing shardRing, ShardRoutingConnectionFactory connectionFactory) {
+        return new ShardRebalancer(shardRing, connectionFactory.shards(), connectionFactory.locator());
+    }
+
+    @Bean
+    ShardsEndpoint shardsEndpoint(ShardRing shardRing, ShardRebalancer shardRebalancer) {
+        return new ShardsEndpoint(shardRing, shardRebalancer);
+    }
+
+    private static ConnectionPool pool(ShardingProperties.Shard shard, R2dbcProperties.Pool poolProperties) {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(shard.url()).mutate()
+                .option(ConnectionFactoryOptions.USER, shard.username())
+                .option(ConnectionFactoryOptions.PASSWORD, shard.password())
+                .build();
+        var configuration = ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+                .initialSize(poolProperties.getInitialSize())
+                .maxSize(poolProperties.getMaxSize());
+        if (poolProperties.getMaxCreateConnectionTime() != null) {
+            configuration.maxCreateConnectionTime(poolProperties.getMaxCreateConnectionTime());
+        }
+        return new ConnectionPool(configuration.build());
+    }
+}
@@ -0,0 +1,27 @@
+package com.polarbookshop.orderservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.List;
+
+@ConfigurationProperties(prefix = "polar.sharding")
+public record ShardingProperties(
+        //false = une seule base (config spring.r2dbc / spring.flyway)
+        boolean enabled,
+        //nombre de positions de chaque shard sur l'anneau de hachage consistant
+        int virtualNodes,
+        //l'ordre des shards est significatif : l'index est encodé dans l'id des commandes
+        List<Shard> shards
+) {
+    public ShardingProperties {
+        if (virtualNodes <= 0) { virtualNodes = 128; }
+        if (shards == null) { shards = List.of(); }
+    }
+
+    public record Shard(
+            String url, //URL R2DBC
+            String jdbcUrl, //URL JDBC utilisée par Flyway
+            String username,
+            String password
+    ) {}
+}
@@ -0,0 +1,26 @@
+package com.polarbookshop.orderservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "polar.warmup")
+public record WarmupProperties(
+        //false = le pod est prêt dès le démarrage
+        boolean enabled,
+        //nombre max de cycles synthétiques de validation / sérialisation d'une commande
+        int iterations,
+        //durée max de la phase de warm-up, quel que soit le nombre de cycles réalisés
+        Duration timeBudget,
+        //nombre d'appels concurrents vers catalog-service pour ouvrir des connexions
+        int catalogConnections,
+        //isbn demandé à catalog-service pendant le warm-up
+        String catalogIsbn
+) {
+    public WarmupProperties {
+        if (iterations <= 0) { iterations = 10_000; }
+        if (timeBudget == null) { timeBudget = Duration.ofSeconds(30); }
+        if (catalogConnections <= 0) { catalogConnections = 4; }
+        if (catalogIsbn == null) { catalogIsbn = "1234567890"; }
+    }
+}
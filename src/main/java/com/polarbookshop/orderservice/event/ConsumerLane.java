@@ -0,0 +1,52 @@
+package com.polarbookshop.orderservice.event;
+
+import com.polarbookshop.orderservice.config.ConsumerLaneProperties;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Couloir de ressources du consommateur order-dispatched, isolé du trafic HTTP :
+ * - scheduler dédié à la réception des messages (les requêtes R2DBC s'exécutent ensuite sur les event loops du driver)
+ * - quota de messages traités simultanément, donc de connexions R2DBC empruntées au pool partagé
+ */
+@Component
+public class ConsumerLane implements DisposableBean {
+    private final Scheduler scheduler;
+    private final int concurrency;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public ConsumerLane(ConsumerLaneProperties properties) {
+        this.scheduler = Schedulers.newParallel("order-consumer", properties.schedulerThreads());
+        this.concurrency = properties.concurrency();
+    }
+
+    public Scheduler scheduler() {
+        return scheduler;
+    }
+
+    public int concurrency() {
+        return concurrency;
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    //comptabilise le traitement d'un message dans l'utilisation du couloir
+    public <T> Mono<T> track(Mono<T> processing) {
+        return Mono.defer(() -> {
+            inFlight.incrementAndGet();
+            return processing.doFinally(signal -> inFlight.decrementAndGet());
+        });
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.dispose();
+    }
+}
@@ -0,0 +1,101 @@
+package com.polarbookshop.orderservice.event;
+
+import com.polarbookshop.orderservice.config.ConsumerLaneProperties;
+import com.polarbookshop.orderservice.monitoring.HttpLatencyFilter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cloud.stream.binding.BindingsLifecycleController;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Met en pause le consommateur order-dispatched (arrêt du binding : les messages restent dans RabbitMQ)
+ * quand le p99 des requêtes HTTP de l'intervalle dépasse le SLO, et le relance quand il repasse en dessous
+ * de RESUME_RATIO x SLO. Expose l'utilisation des couloirs HTTP et consommateur.
+ */
+@Component
+public class ConsumerLaneGovernor implements MeterBinder, DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(ConsumerLaneGovernor.class);
+    static final String CONSUMER_BINDING = "consumeOrderDispatchedMessages-in-0";
+    private static final double RESUME_RATIO = 0.8;
+
+    private final ConsumerLaneProperties properties;
+    private final ConsumerLane consumerLane;
+    private final HttpLatencyFilter httpLatencyFilter;
+    private final BindingsLifecycleController bindingsLifecycleController;
+    private volatile boolean paused;
+    private volatile long lastHttpLatency;
+    private Disposable checks;
+
+    public ConsumerLaneGovernor(ConsumerLaneProperties properties, ConsumerLane consumerLane,
+                                HttpLatencyFilter httpLatencyFilter, BindingsLifecycleController bindingsLifecycleController) {
+        this.properties = properties;
+        this.consumerLane = consumerLane;
+        this.httpLatencyFilter = httpLatencyFilter;
+        this.bindingsLifecycleController = bindingsLifecycleController;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        checks = Flux.interval(properties.checkInterval())
+                //l'arrêt / le redémarrage du binding est bloquant : hors des threads non bloquants
+                .publishOn(Schedulers.boundedElastic())
+                .subscribe(tick -> check(), exception -> log.error("Consumer lane check failed", exception));
+    }
+
+    void check() {
+        var interval = httpLatencyFilter.nextInterval();
+        //trop peu de requêtes HTTP : pas de pression sur le trafic interactif
+        long latency = interval.requests() >= properties.minHttpSamples() ? interval.percentile() : 0;
+        lastHttpLatency = latency;
+        long slo = properties.httpLatencySlo().toMillis();
+
+        if (!paused && latency > slo) {
+            log.warn("HTTP p99 {} ms above the {} ms SLO : pausing the order dispatched consumer", latency, slo);
+            bindingsLifecycleController.changeState(CONSUMER_BINDING, BindingsLifecycleController.State.STOPPED);
+            paused = true;
+        } else if (paused && latency < slo * RESUME_RATIO) {
+            log.info("HTTP p99 {} ms back under the SLO : resuming the order dispatched consumer", latency);
+            bindingsLifecycleController.changeState(CONSUMER_BINDING, BindingsLifecycleController.State.STARTED);
+            paused = false;
+        }
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("polar.lane.in.flight", httpLatencyFilter, HttpLatencyFilter::inFlight)
+                .description("Work items in progress in the lane")
+                .tag("lane", "http")
+                .register(registry);
+        Gauge.builder("polar.lane.in.flight", consumerLane, ConsumerLane::inFlight)
+                .tag("lane", "consumer")
+                .register(registry);
+        Gauge.builder("polar.lane.utilization", consumerLane, lane -> (double) lane.inFlight() / lane.concurrency())
+                .description("Share of the lane quota in use")
+                .tag("lane", "consumer")
+                .register(registry);
+        Gauge.builder("polar.lane.http.latency", this, governor -> governor.lastHttpLatency)
+                .description("HTTP p99 latency over the last SLO check interval")
+                .baseUnit("milliseconds")
+                .register(registry);
+        Gauge.builder("polar.lane.consumer.paused", this, governor -> governor.paused ? 1 : 0)
+                .register(registry);
+    }
+
+    @Override
+    public void destroy() {
+        if (checks != null) { checks.dispose(); }
+    }
+}
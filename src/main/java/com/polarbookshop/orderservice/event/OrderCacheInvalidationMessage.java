@@ -0,0 +1,7 @@
+package com.polarbookshop.orderservice.event;
+
+//message diffusé aux autres instances d'order-service pour invalider la liste en cache d'un utilisateur
+public record OrderCacheInvalidationMessage(
+        String userId,
+        String origin //instance émettrice, qui ignore ses propres messages
+) {}
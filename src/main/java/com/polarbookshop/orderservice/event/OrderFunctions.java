@@ -1,8 +1,10 @@
 package com.polarbookshop.orderservice.event;
 
+import com.polarbookshop.orderservice.order.domain.OrderCache;
 import com.polarbookshop.orderservice.order.domain.OrderService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import reactor.core.publisher.Flux;
@@ -15,9 +17,14 @@ public class OrderFunctions {
 
     //inscrit la fonction Consumer retournée en tant que bean -entrée = flux de messages - orderService injecté
     @Bean
-    public Consumer<Flux<OrderDispatchedMessage>> consumeOrderDispatchedMessages(OrderService orderService) {
+    public Consumer<Flux<OrderDispatchedMessage>> consumeOrderDispatchedMessages(OrderService orderService, ConsumerLane consumerLane) {
         return flux-> //le flux reçu par la fonction
-                orderService.updateOrdersWithDispatchedStatus(flux)// flux passé pour traitement à OrderService
+                orderService.updateOrdersWithDispatchedStatus(
+                                //réception des messages sur le scheduler dédié au consommateur ; les requêtes R2DBC se poursuivent
+                                //sur les event loops du driver. Prefetch limité au quota (256 par défaut) : pas de
+                                //tampon de messages côté application que la mise en pause du binding ne pourrait pas retenir
+                                flux.publishOn(consumerLane.scheduler(), consumerLane.concurrency()),
+                                consumerLane)// flux passé pour traitement à OrderService, dans le quota du consommateur
                         //pour chaque item Order (traité / mis à jour) du flux
                         .doOnNext(order-> log.info("the order with id {} is updated",order.id()))
                         //Nécessaire pour que le flux de message /entrant réceptionné soit activé
@@ -25,4 +32,12 @@ public class OrderFunctions {
                         .subscribe();
 
     }
+
+    //invalidations du cache des commandes émises par les autres instances (queue anonyme = diffusion à toutes les instances)
+    //bean absent sans diffusion : pas de queue déclarée ni d'invalidations consommées pour rien
+    @Bean
+    @ConditionalOnProperty(prefix = "polar.order-cache", name = "broadcast", havingValue = "true")
+    public Consumer<OrderCacheInvalidationMessage> consumeOrderCacheInvalidations(OrderCache orderCache) {
+        return orderCache::onInvalidation;
+    }
 }
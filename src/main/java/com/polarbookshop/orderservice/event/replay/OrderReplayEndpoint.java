@@ -0,0 +1,50 @@
+package com.polarbookshop.orderservice.event.replay;
+
+import com.polarbookshop.orderservice.order.domain.OrderStatus;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+
+/**
+ * endpoint actuator /actuator/orderreplay :
+ * POST démarre (ou reprend, pour un nom déjà utilisé) un rejeu, GET donne l'avancement, DELETE l'interrompt
+ * un seul rejeu à la fois : POST pendant un rejeu en cours répond 409
+ */
+@Component
+@Endpoint(id = "orderreplay")
+public class OrderReplayEndpoint {
+    private final OrderReplayService orderReplayService;
+
+    public OrderReplayEndpoint(OrderReplayService orderReplayService) {
+        this.orderReplayService = orderReplayService;
+    }
+
+    @ReadOperation
+    public ReplayProgress progress() {
+        return orderReplayService.progress();
+    }
+
+    //409 avec l'avancement du rejeu en cours si un rejeu est déjà lancé
+    @WriteOperation
+    public WebEndpointResponse<ReplayProgress> start(String name, @Nullable OrderStatus status, @Nullable Long fromId,
+                                                     @Nullable Long toId, @Nullable Instant fromDate, @Nullable Instant toDate) {
+        try {
+            return new WebEndpointResponse<>(orderReplayService.start(new OrderReplayService.ReplayRequest(
+                    name, status != null ? status : OrderStatus.ACCEPTED, fromId, toId, fromDate, toDate)));
+        } catch (OrderReplayService.ReplayAlreadyRunningException exception) {
+            return new WebEndpointResponse<>(exception.progress(), HttpStatus.CONFLICT.value());
+        }
+    }
+
+    @DeleteOperation
+    public ReplayProgress stop() {
+        return orderReplayService.stop();
+    }
+}
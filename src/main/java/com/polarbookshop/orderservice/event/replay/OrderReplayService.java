@@ -0,0 +1,169 @@
+package com.polarbookshop.orderservice.event.replay;
+
+import com.polarbookshop.orderservice.config.ReplayProperties;
+import com.polarbookshop.orderservice.event.OrderAcceptedMessage;
+import com.polarbookshop.orderservice.order.domain.OrderRepository;
+import com.polarbookshop.orderservice.order.domain.OrderStatus;
+import com.polarbookshop.orderservice.shard.ShardKeys;
+import com.polarbookshop.orderservice.shard.ShardRing;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.stream.function.StreamBridge;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Rejeu des messages order-accepted à partir de la table orders, déclenché par un administrateur
+ * (ex : perte d'état de dispatcher-service).
+ * - parcours par statut et plage d'ids / de dates, pagination sur clé
+ * - publication vers acceptOrder-out-0 par lots espacés de batchInterval pour ne pas affamer le trafic courant
+ * - point de reprise enregistré après chaque lot : un rejeu interrompu reprend là où il s'est arrêté
+ */
+@Service
+public class OrderReplayService {
+    private static final Logger log = LoggerFactory.getLogger(OrderReplayService.class);
+    private static final Instant MAX_DATE = Instant.parse("9999-12-31T00:00:00Z");
+
+    private final OrderRepository orderRepository;
+    private final ReplayCheckpointRepository checkpointRepository;
+    private final StreamBridge streamBridge;
+    private final ReplayProperties properties;
+    private final int shardCount;
+    private final Counter publishedCounter;
+    private final AtomicReference<Disposable> running = new AtomicReference<>();
+    private volatile ReplayProgress progress = ReplayProgress.idle();
+
+    public OrderReplayService(OrderRepository orderRepository, ReplayCheckpointRepository checkpointRepository,
+                              StreamBridge streamBridge, ReplayProperties properties,
+                              ObjectProvider<ShardRing> shardRing, MeterRegistry meterRegistry) {
+        this.orderRepository = orderRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.streamBridge = streamBridge;
+        this.properties = properties;
+        ShardRing ring = shardRing.getIfAvailable();
+        this.shardCount = ring != null ? ring.shardCount() : 1;
+        this.publishedCounter = Counter.builder("polar.orders.replay.published")
+                .description("Order accepted messages published by a replay")
+                .register(meterRegistry);
+    }
+
+    public synchronized ReplayProgress start(ReplayRequest request) {
+        Disposable current = running.get();
+        if (current != null && !current.isDisposed()) {
+            throw new ReplayAlreadyRunningException(progress);
+        }
+        var published = new AtomicLong();
+        var startedAt = Instant.now();
+        progress = new ReplayProgress(request.name(), ReplayProgress.State.RUNNING, 0, null, 0, startedAt, null, null);
+
+        running.set(Flux.range(0, shardCount)
+                //les shards sont rejoués l'un après l'autre
+                .concatMap(shard -> replayShard(request, shard, published, startedAt))
+                .then()
+                .doOnSuccess(ignored -> finish(ReplayProgress.State.COMPLETED, published, startedAt, null))
+                .doOnError(exception -> finish(ReplayProgress.State.FAILED, published, startedAt, exception))
+                .doOnCancel(() -> finish(ReplayProgress.State.STOPPED, published, startedAt, null))
+                .subscribe(ignored -> {}, exception -> log.error("Replay {} failed", request.name(), exception)));
+        return progress;
+    }
+
+    public ReplayProgress stop() {
+        Disposable current = running.get();
+        if (current != null) { current.dispose(); }
+        return progress;
+    }
+
+    public ReplayProgress progress() {
+        return progress;
+    }
+
+    private Flux<ReplayCheckpoint> replayShard(ReplayRequest request, int shard, AtomicLong published, Instant startedAt) {
+        long afterId = request.fromId() != null ? request.fromId() - 1 : 0;
+        return checkpointRepository.findById(request.name())
+                .defaultIfEmpty(ReplayCheckpoint.start(request.name(), request.status(), afterId))
+                //un lot publié -> point de reprise enregistré -> pause -> lot suivant
+                .expand(checkpoint -> checkpoint.completed()
+                        ? Mono.empty()
+                        : nextBatch(request, checkpoint, shard, published, startedAt)
+                                .delayElement(properties.batchInterval()))
+                .contextWrite(ShardKeys.forShard(shard));
+    }
+
+    private Mono<ReplayCheckpoint> nextBatch(ReplayRequest request, ReplayCheckpoint checkpoint, int shard,
+                                             AtomicLong published, Instant startedAt) {
+        return orderRepository.findIdsByStatusAfter(
+                        request.status().name(),
+                        checkpoint.lastOrderId(),
+                        request.toId() != null ? request.toId() : Long.MAX_VALUE,
+                        request.fromDate() != null ? request.fromDate() : Instant.EPOCH,
+                        request.toDate() != null ? request.toDate() : MAX_DATE,
+                        properties.batchSize())
+                .collectList()
+                .flatMap(ids -> ids.isEmpty()
+                        ? checkpointRepository.save(checkpoint.complete())
+                        : publish(ids)
+                                .then(Mono.defer(() -> checkpointRepository.save(
+                                        checkpoint.advance(ids.get(ids.size() - 1), ids.size()))))
+                                .doOnNext(saved -> {
+                                    published.addAndGet(ids.size());
+                                    progress = new ReplayProgress(request.name(), ReplayProgress.State.RUNNING, shard,
+                                            saved.lastOrderId(), published.get(), startedAt, null, null);
+                                }));
+    }
+
+    //StreamBridge.send est bloquant (publication RabbitMQ) : exécution hors des event loops
+    private Mono<Void> publish(List<Long> orderIds) {
+        return Flux.fromIterable(orderIds)
+                .publishOn(Schedulers.boundedElastic())
+                .doOnNext(orderId -> {
+                    if (!streamBridge.send("acceptOrder-out-0", new OrderAcceptedMessage(orderId))) {
+                        throw new IllegalStateException("Order accepted message " + orderId + " not sent");
+                    }
+                    publishedCounter.increment();
+                })
+                .then();
+    }
+
+    private void finish(ReplayProgress.State state, AtomicLong published, Instant startedAt, Throwable exception) {
+        var finishedAt = Instant.now();
+        progress = new ReplayProgress(progress.name(), state, progress.shard(), progress.lastOrderId(), published.get(),
+                startedAt, finishedAt, exception != null ? exception.toString() : null);
+        log.info("Replay {} {} : {} message(s) published in {}", progress.name(), state, published.get(),
+                Duration.between(startedAt, finishedAt));
+    }
+
+    //un seul rejeu à la fois : l'avancement du rejeu en cours est joint au refus
+    public static class ReplayAlreadyRunningException extends IllegalStateException {
+        private final transient ReplayProgress progress;
+
+        ReplayAlreadyRunningException(ReplayProgress progress) {
+            super("A replay is already running : " + progress.name());
+            this.progress = progress;
+        }
+
+        public ReplayProgress progress() {
+            return progress;
+        }
+    }
+
+    public record ReplayRequest(
+            String name,
+            OrderStatus status,
+            Long fromId,
+            Long toId,
+            Instant fromDate,
+            Instant toDate
+    ) {}
+}
@@ -0,0 +1,37 @@
+package com.polarbookshop.orderservice.event.replay;
+
+import com.polarbookshop.orderservice.order.domain.OrderStatus;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.Instant;
+
+//point de reprise d'un rejeu : le parcours reprend après lastOrderId
+@Table("order_replay_checkpoints")
+public record ReplayCheckpoint(
+        @Id
+        String name,
+        OrderStatus status,
+        long lastOrderId,
+        long published,
+        boolean completed,
+        @LastModifiedDate
+        Instant lastModifiedDate,
+        //version = 0 : nouveau point de reprise (insert)
+        @Version
+        int version
+) {
+    public static ReplayCheckpoint start(String name, OrderStatus status, long afterOrderId) {
+        return new ReplayCheckpoint(name, status, afterOrderId, 0, false, null, 0);
+    }
+
+    ReplayCheckpoint advance(long lastOrderId, long batchSize) {
+        return new ReplayCheckpoint(name, status, lastOrderId, published + batchSize, false, lastModifiedDate, version);
+    }
+
+    ReplayCheckpoint complete() {
+        return new ReplayCheckpoint(name, status, lastOrderId, published, true, lastModifiedDate, version);
+    }
+}
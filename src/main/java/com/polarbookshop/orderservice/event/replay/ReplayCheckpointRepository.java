@@ -0,0 +1,6 @@
+package com.polarbookshop.orderservice.event.replay;
+
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+
+public interface ReplayCheckpointRepository extends ReactiveCrudRepository<ReplayCheckpoint, String> {
+}
@@ -0,0 +1,36 @@
+package com.polarbookshop.orderservice.event.replay;
+
+import java.time.Duration;
+import java.time.Instant;
+
+//avancement d'un rejeu, exposé par l'endpoint actuator
+public record ReplayProgress(
+        String name,
+        State state,
+        int shard,
+        Long lastOrderId,
+        long published,
+        Instant startedAt,
+        Instant finishedAt,
+        String error
+) {
+    public enum State {
+        IDLE,
+        RUNNING,
+        COMPLETED,
+        STOPPED,
+        FAILED
+    }
+
+    static ReplayProgress idle() {
+        return new ReplayProgress(null, State.IDLE, 0, null, 0, null, null, null);
+    }
+
+    //débit moyen en messages / seconde depuis le début du rejeu (propriété "throughput" du JSON)
+    public double getThroughput() {
+        if (startedAt == null) { return 0; }
+        Instant end = finishedAt != null ? finishedAt : Instant.now();
+        long millis = Math.max(1, Duration.between(startedAt, end).toMillis());
+        return published * 1000.0 / millis;
+    }
+}
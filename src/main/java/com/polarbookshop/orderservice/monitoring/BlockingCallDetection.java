@@ -0,0 +1,39 @@
+package com.polarbookshop.orderservice.monitoring;
+
+import reactor.blockhound.BlockHound;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Installation de BlockHound en mode "signalement" : l'appel bloquant n'est pas interrompu,
+ * il est enregistré dans le {@link BlockingCallRegistry} avec sa pile d'appels.
+ * Nécessite sur Java 13+ l'option JVM -XX:+AllowRedefinitionToAddDeleteMethods.
+ * Utilisable dans les tests via {@link #install(BlockingCallRegistry)}.
+ */
+public final class BlockingCallDetection {
+    private static final AtomicBoolean installed = new AtomicBoolean();
+    //BlockHound ne s'installe qu'une fois par JVM : le registre cible peut changer (ex : contexte de test)
+    private static final AtomicReference<BlockingCallRegistry> target = new AtomicReference<>();
+
+    private BlockingCallDetection() {}
+
+    public static void install(BlockingCallRegistry registry) {
+        target.set(registry);
+        if (!installed.compareAndSet(false, true)) { return; }
+
+        BlockHound.install(builder -> builder
+                //les logs applicatifs (appender console) ne sont pas considérés comme des fautes
+                .allowBlockingCallsInside("ch.qos.logback.core.OutputStreamAppender", "writeBytes")
+                .blockingMethodCallback(method -> {
+                    BlockingCallRegistry current = target.get();
+                    if (current != null) {
+                        current.record(method.toString(), Thread.currentThread(), new Exception().getStackTrace());
+                    }
+                }));
+    }
+
+    public static boolean isInstalled() {
+        return installed.get();
+    }
+}
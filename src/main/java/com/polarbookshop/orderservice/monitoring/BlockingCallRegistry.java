@@ -0,0 +1,123 @@
+package com.polarbookshop.orderservice.monitoring;
+
+import com.polarbookshop.orderservice.config.EventLoopProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Registre des appels bloquants détectés sur des threads non bloquants.
+ * Les appels sont regroupés par méthode bloquante + premier frame applicatif pour rester borné.
+ */
+@Component
+public class BlockingCallRegistry implements InitializingBean {
+    private static final Logger log = LoggerFactory.getLogger(BlockingCallRegistry.class);
+    private static final String APPLICATION_PACKAGE = "com.polarbookshop";
+    //frames de la détection elle-même (callback BlockHound, registre) et de Reactor : jamais l'origine de l'appel
+    private static final Set<String> DETECTION_CLASSES = Set.of(
+            BlockingCallDetection.class.getName(), BlockingCallRegistry.class.getName());
+    private static final List<String> DETECTION_PACKAGES = List.of("reactor.blockhound.", "reactor.core.");
+    private static final int MAX_STACK_FRAMES = 30;
+
+    private final ConcurrentMap<String, Offender> offenders = new ConcurrentHashMap<>();
+    private final EventLoopProperties properties;
+    private final int maxOffenders;
+
+    public BlockingCallRegistry(EventLoopProperties properties) {
+        this.properties = properties;
+        this.maxOffenders = properties.maxRecordedBlockingCalls();
+    }
+
+    //installation de la détection au plus tôt dans le cycle de vie du contexte si le mode est activé
+    @Override
+    public void afterPropertiesSet() {
+        if (properties.blockingDetection()) {
+            BlockingCallDetection.install(this);
+        }
+    }
+
+    public void record(String blockingMethod, Thread thread, StackTraceElement[] stackTrace) {
+        String origin = Arrays.stream(stackTrace)
+                .filter(frame -> frame.getClassName().startsWith(APPLICATION_PACKAGE) && !isDetectionFrame(frame))
+                .findFirst()
+                .map(StackTraceElement::toString)
+                .orElse("unknown");
+        String key = blockingMethod + " <- " + origin;
+
+        Offender offender = offenders.get(key);
+        if (offender == null) {
+            if (offenders.size() >= maxOffenders) { return; }//registre plein : on ne garde que les premiers appels distincts
+            List<String> frames = Arrays.stream(stackTrace)
+                    .dropWhile(BlockingCallRegistry::isDetectionFrame)
+                    .limit(MAX_STACK_FRAMES)
+                    .map(StackTraceElement::toString)
+                    .toList();
+            offender = offenders.computeIfAbsent(key, k -> new Offender(blockingMethod, origin, frames));
+            log.warn("Blocking call {} detected on thread {} from {}", blockingMethod, thread.getName(), origin);
+        }
+        offender.hit(thread.getName());
+    }
+
+    private static boolean isDetectionFrame(StackTraceElement frame) {
+        String className = frame.getClassName();
+        int nested = className.indexOf('$');
+        return DETECTION_CLASSES.contains(nested < 0 ? className : className.substring(0, nested))
+                || DETECTION_PACKAGES.stream().anyMatch(className::startsWith);
+    }
+
+    public List<BlockingCall> offenders() {
+        return offenders.values().stream()
+                .map(Offender::snapshot)
+                .sorted(Comparator.comparingLong(BlockingCall::count).reversed())
+                .toList();
+    }
+
+    public void clear() {
+        offenders.clear();
+    }
+
+    //vue exposée par l'endpoint actuator
+    public record BlockingCall(
+            String blockingMethod,
+            String origin,
+            long count,
+            String lastThread,
+            Instant lastSeen,
+            List<String> stackTrace
+    ) {}
+
+    private static final class Offender {
+        private final String blockingMethod;
+        private final String origin;
+        private final List<String> stackTrace;
+        private final AtomicLong count = new AtomicLong();
+        private volatile String lastThread;
+        private volatile Instant lastSeen;
+
+        private Offender(String blockingMethod, String origin, List<String> stackTrace) {
+            this.blockingMethod = blockingMethod;
+            this.origin = origin;
+            this.stackTrace = stackTrace;
+        }
+
+        private void hit(String threadName) {
+            count.incrementAndGet();
+            lastThread = threadName;
+            lastSeen = Instant.now();
+        }
+
+        private BlockingCall snapshot() {
+            return new BlockingCall(blockingMethod, origin, count.get(), lastThread, lastSeen, stackTrace);
+        }
+    }
+}
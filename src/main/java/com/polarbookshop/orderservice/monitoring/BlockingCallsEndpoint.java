@@ -0,0 +1,31 @@
+package com.polarbookshop.orderservice.monitoring;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+//endpoint actuator /actuator/blockingcalls listant les appels bloquants détectés sur les event loops
+@Component
+@Endpoint(id = "blockingcalls")
+public class BlockingCallsEndpoint {
+    private final BlockingCallRegistry registry;
+
+    public BlockingCallsEndpoint(BlockingCallRegistry registry) {
+        this.registry = registry;
+    }
+
+    @ReadOperation
+    public BlockingCallsReport blockingCalls() {
+        return new BlockingCallsReport(BlockingCallDetection.isInstalled(), registry.offenders());
+    }
+
+    @DeleteOperation
+    public void reset() {
+        registry.clear();
+    }
+
+    public record BlockingCallsReport(boolean detectionEnabled, List<BlockingCallRegistry.BlockingCall> offenders) {}
+}
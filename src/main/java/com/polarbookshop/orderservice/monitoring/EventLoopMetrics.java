@@ -0,0 +1,89 @@
+package com.polarbookshop.orderservice.monitoring;
+
+import com.polarbookshop.orderservice.config.EventLoopProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.SingleThreadEventExecutor;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.http.HttpResources;
+import reactor.netty.tcp.TcpResources;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Métriques de santé des event loops Netty :
+ * - "http" : loops partagées par le serveur WebFlux et le WebClient (HttpResources globales)
+ * - "r2dbc" : loops utilisées par le driver r2dbc-postgresql (TcpResources globales)
+ * Une tâche sonde est soumise périodiquement à chaque loop : le délai avant son exécution = le lag de la loop.
+ */
+@Component
+public class EventLoopMetrics implements MeterBinder, DisposableBean {
+    private final EventLoopProperties properties;
+    private final List<Disposable> probes = new ArrayList<>();
+
+    public EventLoopMetrics(EventLoopProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Map<String, EventLoopGroup> groups = Map.of(
+                "http", HttpResources.get().onServer(true),
+                "r2dbc", TcpResources.get().onClient(true));
+        groups.forEach((loop, group) -> bindGroup(registry, loop, group));
+    }
+
+    private void bindGroup(MeterRegistry registry, String loop, EventLoopGroup group) {
+        int index = 0;
+        for (EventExecutor executor : group) {
+            String executorTag = String.valueOf(index++);
+            //nombre de tâches en attente dans la file de la loop
+            if (executor instanceof SingleThreadEventExecutor singleThreadExecutor) {
+                Gauge.builder("polar.event.loop.pending.tasks", singleThreadExecutor, SingleThreadEventExecutor::pendingTasks)
+                        .description("Tasks waiting in the event loop queue")
+                        .tags("loop", loop, "executor", executorTag)
+                        .register(registry);
+            }
+
+            Timer lagTimer = Timer.builder("polar.event.loop.lag")
+                    .description("Delay between the submission of a probe task and its execution on the event loop")
+                    .tags("loop", loop, "executor", executorTag)
+                    .publishPercentiles(0.5, 0.99)
+                    .register(registry);
+            AtomicLong lastLag = new AtomicLong();
+            Gauge.builder("polar.event.loop.lag.last", lastLag, AtomicLong::get)
+                    .baseUnit("nanoseconds")
+                    .tags("loop", loop, "executor", executorTag)
+                    .register(registry);
+
+            //la sonde est émise depuis un scheduler Reactor pour ne pas dépendre de la loop mesurée
+            probes.add(Flux.interval(properties.probeInterval(), Schedulers.parallel())
+                    .filter(tick -> !executor.isShuttingDown())
+                    .subscribe(tick -> {
+                        long submittedAt = System.nanoTime();
+                        executor.execute(() -> {
+                            long lag = System.nanoTime() - submittedAt;
+                            lastLag.set(lag);
+                            lagTimer.record(lag, TimeUnit.NANOSECONDS);
+                        });
+                    }));
+        }
+    }
+
+    @Override
+    public void destroy() {
+        probes.forEach(Disposable::dispose);
+    }
+}
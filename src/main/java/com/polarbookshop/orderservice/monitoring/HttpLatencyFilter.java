@@ -0,0 +1,56 @@
+package com.polarbookshop.orderservice.monitoring;
+
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Mesure des requêtes HTTP interactives (hors actuator) : requêtes en cours et latences de l'intervalle courant.
+ * L'intervalle est clos par {@link #nextInterval()} : chaque évaluation du SLO porte sur des requêtes récentes.
+ * Enregistrement sans verrou (LatencyHistogram) sur le chemin des requêtes ; le percentile n'est calculé qu'à la clôture.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class HttpLatencyFilter implements WebFilter {
+    private static final double PERCENTILE = 0.99;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicReference<LatencyHistogram> interval = new AtomicReference<>(new LatencyHistogram());
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if (exchange.getRequest().getPath().value().startsWith("/actuator")) {
+            return chain.filter(exchange);
+        }
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            inFlight.incrementAndGet();
+            return chain.filter(exchange)
+                    .doFinally(signal -> {
+                        inFlight.decrementAndGet();
+                        interval.get().record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                    });
+        });
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    //clôt l'intervalle courant et retourne son nombre de requêtes et son p99
+    //(une requête terminée pendant la bascule peut être comptée dans l'intervalle suivant)
+    public Interval nextInterval() {
+        LatencyHistogram closed = interval.getAndSet(new LatencyHistogram());
+        return new Interval(closed.count(), closed.percentile(PERCENTILE));
+    }
+
+    public record Interval(long requests, long percentile) {}
+}
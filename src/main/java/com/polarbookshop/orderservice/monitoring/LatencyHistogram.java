@@ -0,0 +1,73 @@
+package com.polarbookshop.orderservice.monitoring;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogramme de latences (en ms) enregistrable sans verrou depuis toutes les event loops :
+ * un enregistrement = l'incrément d'un compteur LongAdder (réparti par thread en cas de contention).
+ * Buckets de 1 ms jusqu'à LINEAR_LIMIT, puis SUB_BUCKETS buckets par puissance de 2 (précision ~6 %).
+ * Le percentile, plus coûteux, est calculé à la demande (ex : une fois par intervalle d'évaluation du SLO).
+ */
+public class LatencyHistogram {
+    private static final int LINEAR_LIMIT = 64;
+    private static final int LINEAR_BITS = 6;
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    //au-delà de 2^20 ms (~17 min), les latences tombent dans le dernier bucket
+    private static final int MAX_EXPONENT = 20;
+    private static final int BUCKETS = LINEAR_LIMIT + (MAX_EXPONENT - LINEAR_BITS + 1) * SUB_BUCKETS;
+
+    private final LongAdder[] counts = new LongAdder[BUCKETS];
+
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    public void record(long latencyMillis) {
+        counts[bucketOf(latencyMillis)].increment();
+    }
+
+    public long count() {
+        long count = 0;
+        for (LongAdder bucketCount : counts) {
+            count += bucketCount.sum();
+        }
+        return count;
+    }
+
+    //borne haute du bucket contenant le percentile demandé, 0 si aucun échantillon
+    public long percentile(double percentile) {
+        if (percentile <= 0 || percentile > 1) { throw new IllegalArgumentException("Percentile must be in ]0, 1]."); }
+        long[] snapshot = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts[i].sum();
+            count += snapshot[i];
+        }
+        if (count == 0) { return 0; }
+        long rank = (long) Math.ceil(percentile * count);
+        long cumulated = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            cumulated += snapshot[i];
+            if (cumulated >= rank) { return upperBound(i); }
+        }
+        return upperBound(BUCKETS - 1);
+    }
+
+    static int bucketOf(long latencyMillis) {
+        if (latencyMillis < LINEAR_LIMIT) { return (int) Math.max(0, latencyMillis); }
+        int exponent = 63 - Long.numberOfLeadingZeros(latencyMillis);
+        if (exponent > MAX_EXPONENT) { return BUCKETS - 1; }
+        int subBucket = (int) (latencyMillis >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return LINEAR_LIMIT + (exponent - LINEAR_BITS) * SUB_BUCKETS + subBucket;
+    }
+
+    static long upperBound(int bucket) {
+        if (bucket < LINEAR_LIMIT) { return bucket; }
+        int exponent = (bucket - LINEAR_LIMIT) / SUB_BUCKETS + LINEAR_BITS;
+        int subBucket = (bucket - LINEAR_LIMIT) % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + subBucket + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+}
@@ -0,0 +1,51 @@
+package com.polarbookshop.orderservice.monitoring;
+
+import java.util.Arrays;
+
+/**
+ * Fenêtre glissante des dernières latences observées (en ms) et calcul d'un percentile.
+ * Le percentile est recalculé au plus tous les RECOMPUTE_EVERY échantillons pour rester peu coûteux.
+ */
+public class LatencyTracker {
+    private static final int RECOMPUTE_EVERY = 32;
+
+    private final long[] samples;
+    private final double percentile;
+    private int next;
+    private int size;
+    private int recordsSinceComputation;
+    private long currentPercentile;
+
+    public LatencyTracker(int windowSize, double percentile) {
+        if (percentile <= 0 || percentile > 1) { throw new IllegalArgumentException("Percentile must be in ]0, 1]."); }
+        this.samples = new long[windowSize];
+        this.percentile = percentile;
+    }
+
+    public synchronized void record(long latencyMillis) {
+        samples[next] = latencyMillis;
+        next = (next + 1) % samples.length;
+        size = Math.min(size + 1, samples.length);
+        //fenêtre encore peu remplie : recalcul à chaque échantillon, sinon par paquets
+        if (++recordsSinceComputation >= RECOMPUTE_EVERY || size < RECOMPUTE_EVERY) {
+            currentPercentile = compute();
+        }
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    //percentile des latences de la fenêtre, 0 si aucun échantillon
+    public synchronized long percentile() {
+        return currentPercentile;
+    }
+
+    private long compute() {
+        recordsSinceComputation = 0;
+        long[] sorted = Arrays.copyOf(samples, size);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile * size) - 1;
+        return sorted[Math.max(0, index)];
+    }
+}
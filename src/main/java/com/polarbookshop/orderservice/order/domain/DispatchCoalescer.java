@@ -0,0 +1,67 @@
+package com.polarbookshop.orderservice.order.domain;
+
+import com.polarbookshop.orderservice.config.DispatchDedupeProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Élimine les passages à DISPATCHED redondants (retries du dispatcher, redélivrances RabbitMQ) :
+ * - un message pour une commande déjà traitée dans la fenêtre est ignoré sans accès à la base
+ *   (seules les commandes mises à jour ou déjà DISPATCHED y restent)
+ * - une commande déjà DISPATCHED n'est pas réécrite (mise à jour conditionnelle, cf. OrderRepository)
+ */
+@Component
+public class DispatchCoalescer {
+    private final RecentIdWindow recentlyDispatched;
+    private final Counter duplicates;
+    private final Counter unchanged;
+    private final Counter unknown;
+    private final Counter applied;
+
+    public DispatchCoalescer(DispatchDedupeProperties properties, MeterRegistry meterRegistry) {
+        this.recentlyDispatched = new RecentIdWindow(properties.capacity(), properties.window().toNanos(), TimeUnit.NANOSECONDS);
+        this.duplicates = suppressedWrites(meterRegistry, "duplicate");
+        this.unchanged = suppressedWrites(meterRegistry, "unchanged");
+        this.unknown = suppressedWrites(meterRegistry, "unknown");
+        this.applied = Counter.builder("polar.orders.dispatch.applied")
+                .description("Orders switched to DISPATCHED")
+                .register(meterRegistry);
+    }
+
+    //false si la commande a déjà été traitée dans la fenêtre : le message est un doublon
+    public boolean tryBegin(long orderId) {
+        if (recentlyDispatched.add(orderId)) { return true; }
+        duplicates.increment();
+        return false;
+    }
+
+    //la commande était déjà DISPATCHED : aucune écriture
+    public void unchanged() {
+        unchanged.increment();
+    }
+
+    //aucune commande pour cet id (ex : shard mal routé) : une redélivrance doit pouvoir la retrouver
+    public void unknown(long orderId) {
+        recentlyDispatched.remove(orderId);
+        unknown.increment();
+    }
+
+    public void applied() {
+        applied.increment();
+    }
+
+    //échec du traitement : la commande doit pouvoir être retraitée par une redélivrance
+    public void failed(long orderId) {
+        recentlyDispatched.remove(orderId);
+    }
+
+    private static Counter suppressedWrites(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("polar.orders.dispatch.suppressed")
+                .description("Order dispatched messages that did not trigger a write")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+}
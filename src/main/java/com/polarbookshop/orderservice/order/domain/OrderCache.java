@@ -0,0 +1,101 @@
+package com.polarbookshop.orderservice.order.domain;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.polarbookshop.orderservice.config.OrderCacheProperties;
+import com.polarbookshop.orderservice.event.OrderCacheInvalidationMessage;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.stream.function.StreamBridge;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Cache borné (en mémoire estimée) des listes de commandes des utilisateurs actifs.
+ * Les listes sont mises à jour sur place quand une commande est créée ou passe DISPATCHED.
+ * Le cache est asynchrone : une invalidation annule aussi un chargement en cours, qui ne peut donc
+ * pas réinsérer une liste périmée ; une mise à jour sur place s'enchaîne sur un chargement en cours.
+ */
+@Component
+public class OrderCache {
+    private static final Logger log = LoggerFactory.getLogger(OrderCache.class);
+    static final String INVALIDATION_BINDING = "orderCacheInvalidation-out-0";
+    //estimation de l'empreinte mémoire d'une commande (objets + chaînes) et d'une entrée de cache
+    private static final int ORDER_WEIGHT = 320;
+    private static final int ENTRY_WEIGHT = 128;
+
+    private final OrderCacheProperties properties;
+    private final AsyncCache<String, List<Order>> cache;
+    private final StreamBridge streamBridge;
+    private final String instanceId = UUID.randomUUID().toString();
+
+    public OrderCache(OrderCacheProperties properties, StreamBridge streamBridge, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.streamBridge = streamBridge;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(properties.maxMemory().toBytes())
+                .weigher((String userId, List<Order> orders) -> ENTRY_WEIGHT + orders.size() * ORDER_WEIGHT)
+                .expireAfterWrite(properties.expireAfterWrite())
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "orders");
+    }
+
+    //liste des commandes de l'utilisateur, chargée via loader en cas d'absence du cache
+    public Flux<Order> orders(String userId, Function<String, Flux<Order>> loader) {
+        if (!properties.enabled()) { return loader.apply(userId); }
+        //le contexte Reactor de l'appelant (sécurité, shard) est propagé au chargement
+        return Mono.deferContextual(context -> Mono.fromFuture(() -> cache.get(userId, (key, executor) ->
+                                loader.apply(key).collectList().map(List::copyOf).contextWrite(context).toFuture()),
+                        true)) //l'annulation d'un abonné n'annule pas le chargement partagé
+                .flatMapIterable(Function.identity());
+    }
+
+    //commande créée ou mise à jour : remplacement (ou ajout) dans la liste en cache de son créateur
+    //à appeler une fois l'écriture validée (commit) : un rollback ne doit laisser ni commande fantôme en cache ni invalidation
+    //prématurée, qu'une relecture concurrente rendrait sans effet
+    public void orderSaved(Order order) {
+        if (!properties.enabled() || order.createdBy() == null) { return; }
+        cache.asMap().computeIfPresent(order.createdBy(), (userId, orders) -> orders.thenApply(current -> upsert(current, order)));
+        broadcastInvalidation(order.createdBy());
+    }
+
+    public void invalidate(String userId) {
+        cache.synchronous().invalidate(userId);
+    }
+
+    //invalidation reçue d'une autre instance
+    public void onInvalidation(OrderCacheInvalidationMessage message) {
+        if (instanceId.equals(message.origin())) { return; }
+        log.debug("Orders of user {} invalidated by instance {}", message.userId(), message.origin());
+        invalidate(message.userId());
+    }
+
+    private void broadcastInvalidation(String userId) {
+        if (!properties.broadcast()) { return; }
+        streamBridge.send(INVALIDATION_BINDING, new OrderCacheInvalidationMessage(userId, instanceId));
+    }
+
+    private static List<Order> upsert(List<Order> orders, Order order) {
+        var updated = new ArrayList<Order>(orders.size() + 1);
+        boolean replaced = false;
+        for (Order existing : orders) {
+            if (existing.id().equals(order.id())) {
+                updated.add(order);
+                replaced = true;
+            } else {
+                updated.add(existing);
+            }
+        }
+        if (!replaced) { updated.add(order); }
+        return List.copyOf(updated);
+    }
+}
@@ -1,8 +1,25 @@
 package com.polarbookshop.orderservice.order.domain;
 
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
 
 public interface OrderRepository extends ReactiveCrudRepository<Order, Long> {
     Flux<Order> findAllByCreatedBy(String userId);
+
+    //projection dynamique : seules les colonnes du type demandé (ex : OrderSummary) sont sélectionnées
+    <T> Flux<T> findAllByCreatedBy(String userId, Class<T> type);
+
+    //parcours par pagination sur clé (keyset) : page suivante = ids > afterId, sans OFFSET
+    @Query("SELECT id FROM orders WHERE status = :status AND id > :afterId AND id <= :toId " +
+            "AND created_date >= :fromDate AND created_date < :toDate ORDER BY id LIMIT :limit")
+    Flux<Long> findIdsByStatusAfter(String status, long afterId, long toId, Instant fromDate, Instant toDate, int limit);
+
+    //mise à jour conditionnelle du statut : vide si la commande est déjà dans ce statut (ou n'existe pas), sans écriture
+    @Query("UPDATE orders SET status = :status, last_modified_date = :modifiedDate, version = version + 1 " +
+            "WHERE id = :id AND status <> :status RETURNING *")
+    Mono<Order> updateStatusIfChanged(long id, String status, Instant modifiedDate);
 }
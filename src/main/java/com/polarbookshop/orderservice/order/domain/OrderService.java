@@ -2,35 +2,50 @@ package com.polarbookshop.orderservice.order.domain;
 
 import com.polarbookshop.orderservice.book.Book;
 import com.polarbookshop.orderservice.book.BookClient;
+import com.polarbookshop.orderservice.event.ConsumerLane;
 import com.polarbookshop.orderservice.event.OrderAcceptedMessage;
 import com.polarbookshop.orderservice.event.OrderDispatchedMessage;
+import com.polarbookshop.orderservice.shard.ShardKeys;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.cloud.stream.function.StreamBridge;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Instant;
+
 @Service
 public class OrderService {
     private final OrderRepository orderRepository;
     private final BookClient bookClient;
     private static final Logger log = LoggerFactory.getLogger(OrderService.class);
     private final StreamBridge streamBridge;
+    private final OrderCache orderCache;
+    private final DispatchCoalescer dispatchCoalescer;
+    private final TransactionalOperator transactionalOperator;
 
     //injection par constructeur
-    public OrderService(OrderRepository orderRepository, BookClient bookClient, StreamBridge streamBridge) {
+    public OrderService(OrderRepository orderRepository, BookClient bookClient, StreamBridge streamBridge, OrderCache orderCache,
+                        DispatchCoalescer dispatchCoalescer, TransactionalOperator transactionalOperator) {
         this.orderRepository = orderRepository;
         this.bookClient = bookClient;
         this.streamBridge = streamBridge;
+        this.orderCache = orderCache;
+        this.dispatchCoalescer = dispatchCoalescer;
+        this.transactionalOperator = transactionalOperator;
     }
     public Flux<Order> getAllOrders(String userId) {
-       //retourne le flux de sortie émettant les Order d'un utilisateur authentifié
-        return orderRepository.findAllByCreatedBy(userId);
+       //retourne le flux de sortie émettant les Order d'un utilisateur authentifié - depuis le cache s'il contient sa liste
+        return orderCache.orders(userId, orderRepository::findAllByCreatedBy);
+    }
+
+    //vue compacte des commandes d'un utilisateur pour les listes
+    public Flux<OrderSummary> getOrderSummaries(String userId) {
+        return orderRepository.findAllByCreatedBy(userId, OrderSummary.class);
     }
 
-    @Transactional//exécution de la méthode dans le contexte d'une transaction englobant la persistance en base et la plublication du message
     public Mono<Order> submitOrder(String bookIsbn, Integer quantity) {
         /*Création d'un objet Mono (flux initial) émettant une seule commande.
         Application de l'opérateur flatMap sur ce flux Mono.
@@ -43,17 +58,38 @@ public class OrderService {
                 .getBookByIsbn(bookIsbn)//flux Mono<Book> fourni par l'appel asynchrone à catalog-service
                 .map(book-> buildAcceptedOrder(book, quantity)) //opérateur créant un flux Mono<Order> à partir de l'item Book émit par Mono<Book>
                 .defaultIfEmpty(buildRejectedOrder(bookIsbn,quantity))//Si Mono<Order> est vide = pas de livre correspondant, création d'un Ordrer REJECTED
-                .flatMap(orderRepository::save)//opérateur sauvegardant la cammande et retournant un Mono<Order>
-                .doOnNext(this::publishOrderAcceptedMessage); //publication du message avec l'order persisté avec le statut ACCEPTED
+                .flatMap(order -> orderRepository.save(order)//opérateur sauvegardant la cammande et retournant un Mono<Order>
+                        .doOnNext(this::publishOrderAcceptedMessage) //publication du message avec l'order persisté avec le statut ACCEPTED
+                        .as(transactionalOperator::transactional))//transaction englobant la persistance en base et la plublication du message
+                .doOnNext(orderCache::orderSaved);//ajout de la commande à la liste en cache de l'utilisateur, une fois la transaction validée
     }
 
     //"consomme" le fux des OrderDispatchedMessage passé par la fonction consumeOrderDispatchedMessages
-    public Flux<Order> updateOrdersWithDispatchedStatus(Flux<OrderDispatchedMessage> flux){
+    //dans le couloir du consommateur : au plus lane.concurrency() messages (donc connexions) à la fois
+    public Flux<Order> updateOrdersWithDispatchedStatus(Flux<OrderDispatchedMessage> flux, ConsumerLane lane){
         return flux.
-                flatMap(message ->
-                        orderRepository.findById(message.orderId()))
-                .map(this::buildDispatchedOrder)
-                .flatMap(orderRepository::save);
+                flatMap(message -> lane.track(markDispatched(message)), lane.concurrency());
+    }
+
+    //les doublons (retries, redélivrances) ne déclenchent ni lecture ni écriture inutile
+    private Mono<Order> markDispatched(OrderDispatchedMessage message) {
+        long orderId = message.orderId();
+        return Mono.defer(() -> {
+            if (!dispatchCoalescer.tryBegin(orderId)) { return Mono.empty(); }
+            //une seule requête si la commande change de statut : pas de findById, et pas de réécriture si elle est déjà DISPATCHED
+            return orderRepository.updateStatusIfChanged(orderId, OrderStatus.DISPATCHED.name(), Instant.now())
+                    .doOnNext(order -> dispatchCoalescer.applied())
+                    //aucune ligne mise à jour : commande déjà DISPATCHED, ou inconnue de ce shard (elle ne reste pas dans la fenêtre)
+                    .switchIfEmpty(orderRepository.existsById(orderId)
+                            .doOnNext(exists -> {
+                                if (exists) { dispatchCoalescer.unchanged(); } else { dispatchCoalescer.unknown(orderId); }
+                            })
+                            .then(Mono.empty()))
+                    .doOnNext(orderCache::orderSaved)
+                    .doOnError(exception -> dispatchCoalescer.failed(orderId))
+                    //écriture routée vers le shard de la commande, retrouvé à partir de son id
+                    .contextWrite(ShardKeys.forOrder(orderId));
+        });
     }
 
     //Méthode utilitaire pour créer une commande rejetée. Note : dans le livre quantity est de type int
@@ -67,21 +103,6 @@ public class OrderService {
         return Order.of(book.isbn(), book.title()+" - "+book.author(), book.price(), quantity, OrderStatus.ACCEPTED );
     }
 
-    //méthode utilitaire privée pour mettre à jour une commande existante avec le statut DISPATCHED
-    private Order buildDispatchedOrder(Order existingOrder) {
-        return new Order(existingOrder.id(),
-                existingOrder.bookIsbn(),
-                existingOrder.bookName(),
-                existingOrder.bookPrice(),
-                existingOrder.quantity(),
-                OrderStatus.DISPATCHED,
-                existingOrder.createdDate(),
-                existingOrder.lastModifiedDate(),
-                existingOrder.createdBy(),
-                existingOrder.lastModifiedBy(),
-                existingOrder.version());
-    }
-
     private void publishOrderAcceptedMessage(Order order) {
         if(!order.status().equals(OrderStatus.ACCEPTED)) { return; }
 
@@ -0,0 +1,14 @@
+package com.polarbookshop.orderservice.order.domain;
+
+import java.time.Instant;
+
+//projection d'Order pour les vues liste : seules ces colonnes sont lues en base
+public record OrderSummary(
+        Long id,
+        String bookIsbn,
+        String bookName,
+        Double bookPrice,
+        Integer quantity,
+        OrderStatus status,
+        Instant createdDate
+) {}
@@ -0,0 +1,122 @@
+package com.polarbookshop.orderservice.order.domain;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Fenêtre des ids de commandes traités récemment, sur des tableaux de long (pas de boxing ni d'objet par entrée) :
+ * - un anneau FIFO des ids et de leur date d'ajout, pour l'éviction par âge ou par capacité
+ * - une table de hachage à adressage ouvert (sondage linéaire) pour le test d'appartenance
+ * Les ids doivent être strictement positifs (0 marque une case vide).
+ */
+public class RecentIdWindow {
+    private static final long EMPTY = 0L;
+
+    private final long[] ring;
+    private final long[] addedAt;
+    private final long[] table;
+    private final int mask;
+    private final long windowNanos;
+    private final LongSupplier nanoClock;
+    private int head;
+    private int size;
+
+    public RecentIdWindow(int capacity, long window, TimeUnit unit) {
+        this(capacity, unit.toNanos(window), System::nanoTime);
+    }
+
+    RecentIdWindow(int capacity, long windowNanos, LongSupplier nanoClock) {
+        this.ring = new long[capacity];
+        this.addedAt = new long[capacity];
+        //table au plus à moitié pleine pour des sondages courts
+        this.table = new long[Integer.highestOneBit(Math.max(2, capacity) * 2 - 1) << 1];
+        this.mask = table.length - 1;
+        this.windowNanos = windowNanos;
+        this.nanoClock = nanoClock;
+    }
+
+    //ajoute l'id ; false s'il est déjà présent dans la fenêtre
+    public synchronized boolean add(long id) {
+        long now = nanoClock.getAsLong();
+        evictExpired(now);
+        if (indexOf(id) >= 0) { return false; }
+        if (size == ring.length) { evictOldest(); }
+        int tail = (head + size) % ring.length;
+        ring[tail] = id;
+        addedAt[tail] = now;
+        size++;
+        insert(id);
+        return true;
+    }
+
+    //retire l'id (ex : traitement en échec, il doit pouvoir être rejoué)
+    public synchronized void remove(long id) {
+        if (indexOf(id) < 0) { return; }
+        delete(id);
+        //l'entrée de l'anneau est neutralisée : elle sera ignorée à son éviction
+        for (int i = 0; i < size; i++) {
+            int slot = (head + i) % ring.length;
+            if (ring[slot] == id) { ring[slot] = EMPTY; }
+        }
+    }
+
+    public synchronized boolean contains(long id) {
+        evictExpired(nanoClock.getAsLong());
+        return indexOf(id) >= 0;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private void evictExpired(long now) {
+        while (size > 0 && now - addedAt[head] > windowNanos) {
+            evictOldest();
+        }
+    }
+
+    private void evictOldest() {
+        long id = ring[head];
+        if (id != EMPTY) { delete(id); }
+        head = (head + 1) % ring.length;
+        size--;
+    }
+
+    private int slot(long id) {
+        return (int) ((id * 0x9E3779B97F4A7C15L) >>> 33) & mask;
+    }
+
+    private int indexOf(long id) {
+        for (int i = slot(id); table[i] != EMPTY; i = (i + 1) & mask) {
+            if (table[i] == id) { return i; }
+        }
+        return -1;
+    }
+
+    private void insert(long id) {
+        int i = slot(id);
+        while (table[i] != EMPTY) { i = (i + 1) & mask; }
+        table[i] = id;
+    }
+
+    //suppression par décalage arrière : pas de marqueur de suppression qui rallongerait les sondages
+    private void delete(long id) {
+        int hole = indexOf(id);
+        if (hole < 0) { return; }
+        int next = hole;
+        while (true) {
+            next = (next + 1) & mask;
+            if (table[next] == EMPTY) { break; }
+            int ideal = slot(table[next]);
+            //l'élément peut combler le trou si sa case idéale n'est pas dans ]hole, next]
+            boolean idealBetween = hole <= next
+                    ? hole < ideal && ideal <= next
+                    : hole < ideal || ideal <= next;
+            if (!idealBetween) {
+                table[hole] = table[next];
+                hole = next;
+            }
+        }
+        table[hole] = EMPTY;
+    }
+}
@@ -2,6 +2,7 @@ package com.polarbookshop.orderservice.order.web;
 
 import com.polarbookshop.orderservice.order.domain.Order;
 import com.polarbookshop.orderservice.order.domain.OrderService;
+import com.polarbookshop.orderservice.order.domain.OrderSummary;
 import jakarta.validation.Valid;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
@@ -27,6 +28,12 @@ public class OrderController {
         return orderService.getAllOrders(jwt.getSubject());
     }
 
+    //GET /orders?view=summary : vue compacte sans les colonnes d'audit
+    @GetMapping(params = "view=summary")
+    public Flux<OrderSummary> getOrderSummaries(@AuthenticationPrincipal Jwt jwt){
+        return orderService.getOrderSummaries(jwt.getSubject());
+    }
+
     @PostMapping
     public Mono<Order> submitOrder(@RequestBody @Valid OrderRequest orderRequest) {
         return orderService.submitOrder(orderRequest.isbn(),orderRequest.quantity());
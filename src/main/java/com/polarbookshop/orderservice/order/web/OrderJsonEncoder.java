@@ -0,0 +1,142 @@
+package com.polarbookshop.orderservice.order.web;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.polarbookshop.orderservice.order.domain.Order;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.EncodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.HttpMessageEncoder;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encodeur JSON dédié au record Order :
+ * - application/json : tableau écrit élément par élément au fil des lignes lues en base (pas de collecte préalable)
+ * - application/x-ndjson : un objet par ligne, flushé à chaque élément
+ * Les noms de champs sont pré-encodés et aucune réflexion n'est utilisée. Les champs d'audit
+ * (createdBy, lastModifiedBy, version) ne sont pas exposés aux clients.
+ * Les buffers sont alloués par la DataBufferFactory de la réponse (buffers Netty poolés).
+ */
+public class OrderJsonEncoder implements HttpMessageEncoder<Order> {
+    private static final List<MimeType> MIME_TYPES = List.of(MediaType.APPLICATION_JSON, MediaType.APPLICATION_NDJSON);
+    private static final int INITIAL_BUFFER_SIZE = 256;
+
+    private static final SerializedString ID = new SerializedString("id");
+    private static final SerializedString BOOK_ISBN = new SerializedString("bookIsbn");
+    private static final SerializedString BOOK_NAME = new SerializedString("bookName");
+    private static final SerializedString BOOK_PRICE = new SerializedString("bookPrice");
+    private static final SerializedString QUANTITY = new SerializedString("quantity");
+    private static final SerializedString STATUS = new SerializedString("status");
+    private static final SerializedString CREATED_DATE = new SerializedString("createdDate");
+    private static final SerializedString LAST_MODIFIED_DATE = new SerializedString("lastModifiedDate");
+
+    //JsonFactory est thread-safe et recycle ses buffers internes entre générateurs
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    @Override
+    public boolean canEncode(ResolvableType elementType, MimeType mimeType) {
+        return Order.class.isAssignableFrom(elementType.toClass())
+                && (mimeType == null || MIME_TYPES.stream().anyMatch(supported -> supported.isCompatibleWith(mimeType)));
+    }
+
+    @Override
+    public Flux<DataBuffer> encode(Publisher<? extends Order> inputStream, DataBufferFactory bufferFactory,
+                                   ResolvableType elementType, MimeType mimeType, Map<String, Object> hints) {
+        if (inputStream instanceof Mono) {
+            return Mono.from(inputStream)
+                    .map(order -> encodeValue(order, bufferFactory, elementType, mimeType, hints))
+                    .flux();
+        }
+        if (MediaType.APPLICATION_NDJSON.isCompatibleWith(mimeType)) {
+            return Flux.from(inputStream).map(order -> write(order, bufferFactory, null, '\n'));
+        }
+        //tableau JSON : "[" avant le 1er élément, "," avant les suivants, "]" à la fin
+        return Flux.defer(() -> {
+            boolean[] first = {true};
+            return Flux.from(inputStream)
+                    .map(order -> {
+                        char separator = first[0] ? '[' : ',';
+                        first[0] = false;
+                        return write(order, bufferFactory, separator, null);
+                    })
+                    .concatWith(Mono.fromSupplier(() -> raw(bufferFactory, first[0] ? "[]" : "]")));
+        });
+    }
+
+    @Override
+    public DataBuffer encodeValue(Order order, DataBufferFactory bufferFactory, ResolvableType valueType,
+                                  MimeType mimeType, Map<String, Object> hints) {
+        return write(order, bufferFactory, null, null);
+    }
+
+    @Override
+    public List<MimeType> getEncodableMimeTypes() {
+        return MIME_TYPES;
+    }
+
+    //types de média pour lesquels chaque élément est flushé dès qu'il est encodé
+    @Override
+    public List<MediaType> getStreamingMediaTypes() {
+        return List.of(MediaType.APPLICATION_NDJSON);
+    }
+
+    private DataBuffer write(Order order, DataBufferFactory bufferFactory, Character prefix, Character suffix) {
+        DataBuffer buffer = bufferFactory.allocateBuffer(INITIAL_BUFFER_SIZE);
+        try (OutputStream outputStream = buffer.asOutputStream();
+             JsonGenerator generator = jsonFactory.createGenerator(outputStream)) {
+            if (prefix != null) { generator.writeRaw(prefix); }
+            writeOrder(generator, order);
+            if (suffix != null) { generator.writeRaw(suffix); }
+        } catch (IOException exception) {
+            DataBufferUtils.release(buffer);
+            throw new EncodingException("Could not encode order " + order.id(), exception);
+        }
+        return buffer;
+    }
+
+    private static void writeOrder(JsonGenerator generator, Order order) throws IOException {
+        generator.writeStartObject();
+        generator.writeFieldName(ID);
+        if (order.id() == null) { generator.writeNull(); } else { generator.writeNumber(order.id()); }
+        generator.writeFieldName(BOOK_ISBN);
+        generator.writeString(order.bookIsbn());
+        generator.writeFieldName(BOOK_NAME);
+        generator.writeString(order.bookName());
+        generator.writeFieldName(BOOK_PRICE);
+        if (order.bookPrice() == null) { generator.writeNull(); } else { generator.writeNumber(order.bookPrice()); }
+        generator.writeFieldName(QUANTITY);
+        if (order.quantity() == null) { generator.writeNull(); } else { generator.writeNumber(order.quantity()); }
+        generator.writeFieldName(STATUS);
+        generator.writeString(order.status() == null ? null : order.status().name());
+        generator.writeFieldName(CREATED_DATE);
+        writeInstant(generator, order.createdDate());
+        generator.writeFieldName(LAST_MODIFIED_DATE);
+        writeInstant(generator, order.lastModifiedDate());
+        generator.writeEndObject();
+    }
+
+    //même format ISO-8601 que l'ObjectMapper de Spring Boot (WRITE_DATES_AS_TIMESTAMPS désactivé)
+    private static void writeInstant(JsonGenerator generator, Instant instant) throws IOException {
+        if (instant == null) { generator.writeNull(); } else { generator.writeString(instant.toString()); }
+    }
+
+    private static DataBuffer raw(DataBufferFactory bufferFactory, String json) {
+        DataBuffer buffer = bufferFactory.allocateBuffer(json.length());
+        buffer.write(json.getBytes(StandardCharsets.US_ASCII));
+        return buffer;
+    }
+}
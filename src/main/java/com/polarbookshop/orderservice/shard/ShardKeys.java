@@ -0,0 +1,33 @@
+package com.polarbookshop.orderservice.shard;
+
+import reactor.util.context.Context;
+
+/**
+ * Clés de routage vers un shard.
+ * L'id d'une commande embarque l'index du shard qui l'a créée dans ses bits de poids fort :
+ * la séquence orders_id_seq du shard n démarre à n << 48 (cf. V3__Shard_aware_ids.sql).
+ * Une commande déplacée par un rééquilibrage est localisée via la table order_relocations de ce shard.
+ */
+public final class ShardKeys {
+    //clé du contexte Reactor forçant le shard utilisé par la ConnectionFactory de routage
+    public static final String SHARD = "polar.shard";
+    //clé du contexte Reactor portant l'id de la commande visée : le shard est celui où elle se trouve
+    public static final String ORDER = "polar.shard.order";
+    static final int SHARD_ID_SHIFT = 48;
+
+    private ShardKeys() {}
+
+    //shard de création de la commande
+    public static int shardOf(Long orderId) {
+        return orderId == null ? 0 : (int) (orderId >>> SHARD_ID_SHIFT);
+    }
+
+    //contexte à appliquer (contextWrite) pour atteindre le shard d'une commande existante sans broadcast
+    public static Context forOrder(Long orderId) {
+        return orderId == null ? forShard(0) : Context.of(ORDER, orderId);
+    }
+
+    public static Context forShard(int shard) {
+        return Context.of(SHARD, shard);
+    }
+}
@@ -0,0 +1,43 @@
+package com.polarbookshop.orderservice.shard;
+
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Localisation d'une commande à partir de son id :
+ * shard de création (encodé dans l'id), sauf relocalisation enregistrée sur ce shard par le rééquilibrage.
+ */
+public class ShardLocator {
+    private final List<DatabaseClient> clients;
+
+    public ShardLocator(List<ConnectionFactory> shards) {
+        this.clients = shards.stream().map(DatabaseClient::create).toList();
+    }
+
+    public Mono<Integer> shardOf(long orderId) {
+        int home = ShardKeys.shardOf(orderId);
+        if (clients.size() == 1 || home >= clients.size()) { return Mono.just(home); }
+        return clients.get(home).sql("SELECT shard FROM order_relocations WHERE order_id = :orderId")
+                .bind("orderId", orderId)
+                .map(row -> row.get("shard", Integer.class))
+                .one()
+                .defaultIfEmpty(home);
+    }
+
+    //enregistre le shard où se trouve désormais la commande (suppression de l'entrée si elle revient sur son shard de création)
+    public Mono<Void> relocate(long orderId, int shard) {
+        int home = ShardKeys.shardOf(orderId);
+        DatabaseClient.GenericExecuteSpec spec = shard == home
+                ? clients.get(home).sql("DELETE FROM order_relocations WHERE order_id = :orderId")
+                : clients.get(home).sql("INSERT INTO order_relocations (order_id, shard) VALUES (:orderId, :shard) " +
+                        "ON CONFLICT (order_id) DO UPDATE SET shard = EXCLUDED.shard")
+                        .bind("shard", shard);
+        return spec.bind("orderId", orderId)
+                .fetch()
+                .rowsUpdated()
+                .then();
+    }
+}
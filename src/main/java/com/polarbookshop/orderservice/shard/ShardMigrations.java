@@ -0,0 +1,37 @@
+package com.polarbookshop.orderservice.shard;
+
+import com.polarbookshop.orderservice.config.ShardingProperties;
+import org.flywaydb.core.Flyway;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Exécution des migrations Flyway sur chaque shard au démarrage.
+ * Le placeholder shard_index positionne la plage d'ids propre au shard.
+ */
+public class ShardMigrations implements InitializingBean {
+    private static final Logger log = LoggerFactory.getLogger(ShardMigrations.class);
+    private final List<ShardingProperties.Shard> shards;
+
+    public ShardMigrations(List<ShardingProperties.Shard> shards) {
+        this.shards = shards;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        for (int index = 0; index < shards.size(); index++) {
+            ShardingProperties.Shard shard = shards.get(index);
+            var result = Flyway.configure()
+                    .dataSource(shard.jdbcUrl(), shard.username(), shard.password())
+                    .locations("classpath:db/migration")
+                    .placeholders(Map.of("shard_index", String.valueOf(index)))
+                    .load()
+                    .migrate();
+            log.info("Shard {} migrated : {} migration(s) executed", index, result.migrationsExecuted);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.polarbookshop.orderservice.shard;
+
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Readable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Outil de rééquilibrage après ajout de shards :
+ * déplace toutes les commandes des utilisateurs dont le shard (anneau) a changé vers leur nouveau shard.
+ * Les ids sont conservés : le nouveau shard est enregistré dans order_relocations du shard encodé dans l'id,
+ * où ShardLocator le retrouve (messages de dispatch, rejeu).
+ * Déplacement en 2 passes par shard source :
+ * - copie des commandes sur le shard cible puis enregistrement de leur relocalisation
+ * - après settleDelay (les écritures déjà routées vers le shard source aboutissent), suppression des lignes sources
+ *   non modifiées depuis leur copie ; une ligne modifiée entre-temps est recopiée avant d'être supprimée
+ * Jusqu'à la fin du rééquilibrage, un utilisateur déplacé ne voit que ses commandes déjà copiées.
+ * Chaque étape est idempotente : une exécution interrompue peut être relancée.
+ */
+public class ShardRebalancer {
+    private static final Logger log = LoggerFactory.getLogger(ShardRebalancer.class);
+    //supérieur au temps max d'obtention d'une connexion (spring.r2dbc.pool.max-create-connection-time)
+    private static final Duration SETTLE_DELAY = Duration.ofSeconds(5);
+    private static final String COLUMNS =
+            "id, book_isbn, book_name, book_price, quantity, status, created_date, last_modified_date, created_by, last_modified_by, version";
+    private static final Map<String, Class<?>> COLUMN_TYPES = Map.ofEntries(
+            Map.entry("id", Long.class),
+            Map.entry("book_isbn", String.class),
+            Map.entry("book_name", String.class),
+            Map.entry("book_price", Double.class),
+            Map.entry("quantity", Integer.class),
+            Map.entry("status", String.class),
+            Map.entry("created_date", LocalDateTime.class),
+            Map.entry("last_modified_date", LocalDateTime.class),
+            Map.entry("created_by", String.class),
+            Map.entry("last_modified_by", String.class),
+            Map.entry("version", Integer.class));
+    //mise à jour d'une copie existante, sans jamais revenir à une version antérieure
+    private static final String UPSERT_UPDATE = COLUMN_TYPES.keySet().stream()
+            .filter(column -> !column.equals("id"))
+            .map(column -> column + " = EXCLUDED." + column)
+            .collect(Collectors.joining(", ", "ON CONFLICT (id) DO UPDATE SET ", " WHERE orders.version < EXCLUDED.version"));
+
+    private final ShardRing ring;
+    private final List<DatabaseClient> clients;
+    private final ShardLocator locator;
+    private final Duration settleDelay;
+
+    public ShardRebalancer(ShardRing ring, List<ConnectionFactory> shards, ShardLocator locator) {
+        this(ring, shards, locator, SETTLE_DELAY);
+    }
+
+    ShardRebalancer(ShardRing ring, List<ConnectionFactory> shards, ShardLocator locator, Duration settleDelay) {
+        this.ring = ring;
+        this.clients = shards.stream().map(DatabaseClient::create).toList();
+        this.locator = locator;
+        this.settleDelay = settleDelay;
+    }
+
+    public Mono<RebalanceReport> rebalance() {
+        return Flux.range(0, clients.size())
+                .concatMap(this::rebalanceShard)
+                .collectList()
+                .map(RebalanceReport::new);
+    }
+
+    private Mono<ShardMoves> rebalanceShard(int source) {
+        return clients.get(source).sql("SELECT DISTINCT created_by FROM orders WHERE created_by IS NOT NULL")
+                .map(row -> row.get("created_by", String.class))
+                .all()
+                .filter(userId -> ring.shardFor(userId) != source)
+                //1ère passe : copie et relocalisation, tous statuts confondus
+                .concatMap(userId -> copyOrders(userId, source, ring.shardFor(userId)))
+                .collectList()
+                .delayUntil(copies -> copies.isEmpty() ? Mono.empty() : Mono.delay(settleDelay))
+                //2nde passe : suppression des lignes sources
+                .flatMapMany(Flux::fromIterable)
+                .concatMap(copy -> deleteSource(copy, source))
+                .count()
+                .map(moved -> new ShardMoves(source, moved))
+                .doOnNext(moves -> log.info("Shard {} rebalanced : {} order(s) moved", source, moves.moved()));
+    }
+
+    private Flux<OrderCopy> copyOrders(String userId, int source, int target) {
+        return clients.get(source).sql("SELECT " + COLUMNS + " FROM orders WHERE created_by = :userId")
+                .bind("userId", userId)
+                .map(ShardRebalancer::toColumns)
+                .all()
+                .concatMap(columns -> copy(columns, target));
+    }
+
+    private Mono<OrderCopy> copy(Map<String, Object> columns, int target) {
+        long orderId = (Long) columns.get("id");
+        return upsert(clients.get(target), columns)
+                .then(locator.relocate(orderId, target))
+                .thenReturn(new OrderCopy(orderId, (Integer) columns.get("version"), target));
+    }
+
+    //suppression conditionnée à la version copiée : une commande modifiée sur le shard source après sa copie est recopiée
+    private Mono<OrderCopy> deleteSource(OrderCopy copy, int source) {
+        return clients.get(source).sql("DELETE FROM orders WHERE id = :id AND version = :version")
+                .bind("id", copy.orderId())
+                .bind("version", copy.version())
+                .fetch()
+                .rowsUpdated()
+                .flatMap(deleted -> deleted > 0
+                        ? Mono.just(copy)
+                        : clients.get(source).sql("SELECT " + COLUMNS + " FROM orders WHERE id = :id")
+                                .bind("id", copy.orderId())
+                                .map(ShardRebalancer::toColumns)
+                                .one()
+                                .flatMap(columns -> copy(columns, copy.target()))
+                                .flatMap(recopy -> deleteSource(recopy, source)));
+    }
+
+    private static Mono<Long> upsert(DatabaseClient client, Map<String, Object> columns) {
+        DatabaseClient.GenericExecuteSpec spec = client.sql("INSERT INTO orders (" + COLUMNS + ") VALUES " +
+                "(:id, :book_isbn, :book_name, :book_price, :quantity, :status, :created_date, :last_modified_date, :created_by, :last_modified_by, :version) " +
+                UPSERT_UPDATE);
+        for (var column : COLUMN_TYPES.entrySet()) {
+            Object value = columns.get(column.getKey());
+            spec = value == null ? spec.bindNull(column.getKey(), column.getValue()) : spec.bind(column.getKey(), value);
+        }
+        return spec.fetch().rowsUpdated();
+    }
+
+    private static Map<String, Object> toColumns(Readable row) {
+        var columns = new HashMap<String, Object>();
+        COLUMN_TYPES.forEach((name, type) -> columns.put(name, row.get(name, type)));
+        return columns;
+    }
+
+    record OrderCopy(long orderId, int version, int target) {}
+
+    public record ShardMoves(int shard, long moved) {}
+
+    public record RebalanceReport(List<ShardMoves> shards) {
+        public long moved() {
+            return shards.stream().mapToLong(ShardMoves::moved).sum();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.polarbookshop.orderservice.shard;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Anneau de hachage consistant associant un utilisateur (createdBy) à un shard.
+ * L'ajout d'un shard ne déplace que les utilisateurs dont la position tombe sur ses noeuds virtuels.
+ */
+public class ShardRing {
+    private final NavigableMap<Long, Integer> ring = new TreeMap<>();
+    private final int shardCount;
+
+    public ShardRing(int shardCount, int virtualNodes) {
+        if (shardCount <= 0) { throw new IllegalArgumentException("At least one shard must be defined."); }
+        this.shardCount = shardCount;
+        for (int shard = 0; shard < shardCount; shard++) {
+            for (int node = 0; node < virtualNodes; node++) {
+                ring.put(hash("shard-" + shard + "#" + node), shard);
+            }
+        }
+    }
+
+    public int shardFor(String userId) {
+        if (shardCount == 1 || userId == null) { return 0; }
+        Map.Entry<Long, Integer> entry = ring.ceilingEntry(hash(userId));
+        return (entry != null ? entry : ring.firstEntry()).getValue();
+    }
+
+    public int shardCount() {
+        return shardCount;
+    }
+
+    private static long hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(key.getBytes(StandardCharsets.UTF_8));
+            return ByteBuffer.wrap(digest).getLong();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
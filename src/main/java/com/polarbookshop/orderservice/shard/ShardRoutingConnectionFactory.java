@@ -0,0 +1,70 @@
+package com.polarbookshop.orderservice.shard;
+
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.r2dbc.connection.lookup.AbstractRoutingConnectionFactory;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ConnectionFactory routant chaque connexion vers un shard :
+ * - shard explicite posé dans le contexte Reactor (ShardKeys.SHARD), ex : parcours d'un shard
+ * - sinon shard de la commande visée (ShardKeys.ORDER), relocalisations comprises, ex : mise à jour par id
+ * - sinon shard de l'utilisateur authentifié, qui sera le createdBy de la commande
+ * - sinon shard 0 (pas d'utilisateur)
+ */
+public class ShardRoutingConnectionFactory extends AbstractRoutingConnectionFactory {
+    private final ShardRing ring;
+    private final List<ConnectionFactory> shards;
+    private final ShardLocator locator;
+
+    public ShardRoutingConnectionFactory(ShardRing ring, List<ConnectionFactory> shards) {
+        this(ring, shards, new ShardLocator(shards));
+    }
+
+    ShardRoutingConnectionFactory(ShardRing ring, List<ConnectionFactory> shards, ShardLocator locator) {
+        this.ring = ring;
+        this.shards = List.copyOf(shards);
+        this.locator = locator;
+        Map<Object, Object> targets = new HashMap<>();
+        for (int shard = 0; shard < shards.size(); shard++) {
+            targets.put(shard, shards.get(shard));
+        }
+        setTargetConnectionFactories(targets);
+        setDefaultTargetConnectionFactory(shards.get(0));
+    }
+
+    public List<ConnectionFactory> shards() {
+        return shards;
+    }
+
+    public ShardLocator locator() {
+        return locator;
+    }
+
+    //fermeture des pools des shards à l'arrêt du contexte
+    public void dispose() {
+        shards.stream()
+                .filter(Disposable.class::isInstance)
+                .map(Disposable.class::cast)
+                .forEach(Disposable::dispose);
+    }
+
+    @Override
+    protected Mono<Object> determineCurrentLookupKey() {
+        return Mono.deferContextual(context -> {
+            if (context.hasKey(ShardKeys.SHARD)) { return Mono.<Object>just(context.get(ShardKeys.SHARD)); }
+            if (context.hasKey(ShardKeys.ORDER)) { return locator.shardOf(context.<Long>get(ShardKeys.ORDER)).map(shard -> (Object) shard); }
+            return ReactiveSecurityContextHolder.getContext()
+                    .map(SecurityContext::getAuthentication)
+                    .filter(Authentication::isAuthenticated)
+                    .map(authentication -> (Object) ring.shardFor(authentication.getName()));
+        });
+    }
+}
@@ -0,0 +1,36 @@
+package com.polarbookshop.orderservice.shard;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import reactor.core.publisher.Mono;
+
+//endpoint actuator /actuator/shards : localisation d'un utilisateur et rééquilibrage après ajout de shards
+@Endpoint(id = "shards")
+public class ShardsEndpoint {
+    private final ShardRing ring;
+    private final ShardRebalancer rebalancer;
+
+    public ShardsEndpoint(ShardRing ring, ShardRebalancer rebalancer) {
+        this.ring = ring;
+        this.rebalancer = rebalancer;
+    }
+
+    @ReadOperation
+    public ShardsDescriptor shards() {
+        return new ShardsDescriptor(ring.shardCount(), null, null);
+    }
+
+    @ReadOperation
+    public ShardsDescriptor shardOfUser(@Selector String userId) {
+        return new ShardsDescriptor(ring.shardCount(), userId, ring.shardFor(userId));
+    }
+
+    @WriteOperation
+    public Mono<ShardRebalancer.RebalanceReport> rebalance() {
+        return rebalancer.rebalance();
+    }
+
+    public record ShardsDescriptor(int shardCount, String userId, Integer shard) {}
+}
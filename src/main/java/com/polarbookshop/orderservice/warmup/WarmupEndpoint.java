@@ -0,0 +1,21 @@
+package com.polarbookshop.orderservice.warmup;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+//endpoint actuator /actuator/warmup : progression de la phase de warm-up
+@Component
+@Endpoint(id = "warmup")
+public class WarmupEndpoint {
+    private final WarmupRunner warmupRunner;
+
+    public WarmupEndpoint(WarmupRunner warmupRunner) {
+        this.warmupRunner = warmupRunner;
+    }
+
+    @ReadOperation
+    public WarmupProgress.Snapshot warmup() {
+        return warmupRunner.progress().snapshot();
+    }
+}
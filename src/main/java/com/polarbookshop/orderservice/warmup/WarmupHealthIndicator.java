@@ -0,0 +1,22 @@
+package com.polarbookshop.orderservice.warmup;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+//indicateur "warmup" inclus dans le groupe readiness : OUT_OF_SERVICE tant que le warm-up n'est pas terminé
+@Component
+public class WarmupHealthIndicator implements HealthIndicator {
+    private final WarmupRunner warmupRunner;
+
+    public WarmupHealthIndicator(WarmupRunner warmupRunner) {
+        this.warmupRunner = warmupRunner;
+    }
+
+    @Override
+    public Health health() {
+        var progress = warmupRunner.progress();
+        var builder = progress.isCompleted() ? Health.up() : Health.outOfService();
+        return builder.withDetail("warmup", progress.snapshot()).build();
+    }
+}
@@ -0,0 +1,57 @@
+package com.polarbookshop.orderservice.warmup;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+//état partagé de la phase de warm-up, lu par l'indicateur de santé et l'endpoint actuator
+public class WarmupProgress {
+
+    public enum Phase {
+        PENDING,
+        CONNECTION_POOLS,
+        CATALOG_CONNECTIONS,
+        SYNTHETIC_CYCLES,
+        COMPLETED
+    }
+
+    private final AtomicLong iterations = new AtomicLong();
+    private volatile Phase phase = Phase.PENDING;
+    private volatile Instant startedAt;
+    private volatile Instant completedAt;
+    private volatile int warmedConnections;
+    private volatile String lastError;
+
+    void start() {
+        startedAt = Instant.now();
+    }
+
+    void phase(Phase phase) {
+        this.phase = phase;
+        if (phase == Phase.COMPLETED) { completedAt = Instant.now(); }
+    }
+
+    void warmedConnections(int warmedConnections) {
+        this.warmedConnections += warmedConnections;
+    }
+
+    void iteration() {
+        iterations.incrementAndGet();
+    }
+
+    void error(Throwable throwable) {
+        lastError = throwable.toString();
+    }
+
+    public boolean isCompleted() {
+        return phase == Phase.COMPLETED;
+    }
+
+    public Snapshot snapshot() {
+        Instant end = completedAt != null ? completedAt : Instant.now();
+        Duration elapsed = startedAt != null ? Duration.between(startedAt, end) : Duration.ZERO;
+        return new Snapshot(phase, iterations.get(), warmedConnections, elapsed.toMillis(), lastError);
+    }
+
+    public record Snapshot(Phase phase, long iterations, int warmedConnections, long elapsedMillis, String lastError) {}
+}
@@ -0,0 +1,138 @@
+package com.polarbookshop.orderservice.warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.polarbookshop.orderservice.book.Book;
+import com.polarbookshop.orderservice.config.WarmupProperties;
+import com.polarbookshop.orderservice.order.domain.Order;
+import com.polarbookshop.orderservice.order.domain.OrderService;
+import com.polarbookshop.orderservice.order.web.OrderJsonEncoder;
+import com.polarbookshop.orderservice.order.web.OrderRequest;
+import com.polarbookshop.orderservice.shard.ShardRoutingConnectionFactory;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.spi.ConnectionFactory;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * Phase de warm-up exécutée au démarrage, avant que le groupe de santé readiness ne passe UP :
+ * remplissage des pools R2DBC, ouverture de connexions vers catalog-service,
+ * puis cycles synthétiques de validation / sérialisation pour chauffer le JIT.
+ */
+@Component
+public class WarmupRunner {
+    private static final Logger log = LoggerFactory.getLogger(WarmupRunner.class);
+    private static final ResolvableType ORDER_TYPE = ResolvableType.forClass(Order.class);
+
+    private final WarmupProperties properties;
+    private final WarmupProgress progress = new WarmupProgress();
+    private final ConnectionFactory connectionFactory;
+    private final WebClient webClient;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final OrderJsonEncoder orderJsonEncoder = new OrderJsonEncoder();
+
+    public WarmupRunner(WarmupProperties properties, ConnectionFactory connectionFactory, WebClient webClient,
+                        Validator validator, ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.connectionFactory = connectionFactory;
+        this.webClient = webClient;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+    }
+
+    public WarmupProgress progress() {
+        return progress;
+    }
+
+    //le warm-up est lancé en arrière-plan : l'application démarre, seule la readiness attend sa fin
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!properties.enabled()) {
+            progress.phase(WarmupProgress.Phase.COMPLETED);
+            return;
+        }
+        progress.start();
+        warmUpConnectionPools()
+                .then(warmUpCatalogConnections())
+                .then(runSyntheticCycles())
+                .timeout(properties.timeBudget(), Mono.empty())
+                .doOnError(progress::error)
+                .onErrorResume(exception -> Mono.empty())
+                .doFinally(signal -> {
+                    progress.phase(WarmupProgress.Phase.COMPLETED);
+                    log.info("Warm-up completed : {}", progress.snapshot());
+                })
+                .subscribe();
+    }
+
+    private Mono<Void> warmUpConnectionPools() {
+        return Mono.fromRunnable(() -> progress.phase(WarmupProgress.Phase.CONNECTION_POOLS))
+                .thenMany(Flux.fromIterable(connectionPools()))
+                //warmup() ouvre les connexions jusqu'à la taille initiale du pool
+                .concatMap(ConnectionPool::warmup)
+                .doOnNext(progress::warmedConnections)
+                .then();
+    }
+
+    private Mono<Void> warmUpCatalogConnections() {
+        return Mono.fromRunnable(() -> progress.phase(WarmupProgress.Phase.CATALOG_CONNECTIONS))
+                .thenMany(Flux.range(0, properties.catalogConnections()))
+                //appels concurrents pour que le pool du WebClient ouvre plusieurs connexions
+                //requêtes brutes, hors BookClient : ni retry, ni budget de retry, ni échantillon de latence pour le timeout adaptatif
+                .flatMap(i -> webClient.get()
+                        .uri("/books/{isbn}", properties.catalogIsbn())
+                        .exchangeToMono(ClientResponse::releaseBody)
+                        .onErrorResume(exception -> Mono.empty()))
+                .then();
+    }
+
+    private Mono<Void> runSyntheticCycles() {
+        return Mono.fromRunnable(() -> progress.phase(WarmupProgress.Phase.SYNTHETIC_CYCLES))
+                .thenMany(Flux.range(0, properties.iterations()))
+                //les cycles sont CPU-bound : ils ne doivent pas occuper les event loops
+                .publishOn(Schedulers.boundedElastic())
+                .doOnNext(i -> syntheticCycle())
+                .then();
+    }
+
+    private void syntheticCycle() {
+        var orderRequest = new OrderRequest(properties.catalogIsbn(), 1);
+        validator.validate(orderRequest);
+        var order = OrderService.buildAcceptedOrder(new Book(orderRequest.isbn(), "Title", "Author", 9.90), orderRequest.quantity());
+        //encodage par le même encodeur que les réponses HTTP, relecture par Jackson comme le ferait un client
+        var buffer = orderJsonEncoder.encodeValue(order, DefaultDataBufferFactory.sharedInstance, ORDER_TYPE, MediaType.APPLICATION_JSON, null);
+        try (InputStream inputStream = buffer.asInputStream(true)) {
+            objectMapper.readValue(inputStream, Order.class);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+        progress.iteration();
+    }
+
+    private List<ConnectionPool> connectionPools() {
+        List<ConnectionFactory> factories = connectionFactory instanceof ShardRoutingConnectionFactory routing
+                ? routing.shards()
+                : List.of(connectionFactory);
+        return factories.stream()
+                .filter(ConnectionPool.class::isInstance)
+                .map(ConnectionPool.class::cast)
+                .toList();
+    }
+}
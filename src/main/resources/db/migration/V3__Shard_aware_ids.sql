@@ -0,0 +1,9 @@
+-- les ids des commandes créées sur le shard n démarrent à n << 48 : l'id suffit à retrouver le shard
+-- le shard 0 (base historique) conserve sa séquence
+DO $$
+BEGIN
+    IF ${shard_index} > 0 THEN
+        PERFORM setval('orders_id_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM orders), ${shard_index}::bigint << 48));
+    END IF;
+END
+$$;
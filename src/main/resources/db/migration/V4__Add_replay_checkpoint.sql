@@ -0,0 +1,10 @@
+-- point de reprise des rejeux de messages order-accepted (un enregistrement par rejeu nommé)
+CREATE TABLE order_replay_checkpoints (
+    name                varchar(255) PRIMARY KEY NOT NULL,
+    status              varchar(255) NOT NULL,
+    last_order_id       bigint NOT NULL,
+    published           bigint NOT NULL,
+    completed           boolean NOT NULL,
+    last_modified_date  timestamp NOT NULL,
+    version             integer NOT NULL
+);
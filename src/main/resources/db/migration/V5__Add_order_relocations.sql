@@ -0,0 +1,6 @@
+-- shard actuel des commandes déplacées par un rééquilibrage
+-- tenue sur le shard encodé dans l'id de la commande (shard de création) : l'id suffit toujours à la retrouver
+CREATE TABLE order_relocations (
+    order_id            bigint PRIMARY KEY NOT NULL,
+    shard               integer NOT NULL
+);
@@ -280,4 +280,31 @@ class OrderServiceApplicationTests {
 						});
 
 	}
+
+	//le rejeu des messages order-accepted est réservé aux employés
+	@Test
+	void whenCustomerStartsOrderReplayThenForbidden() {
+		webClient.post()
+				.uri("/actuator/orderreplay")
+				.headers(headers -> headers.setBearerAuth(bjornTokens.accessToken()))
+				.contentType(MediaType.APPLICATION_JSON)
+				.bodyValue("{\"name\":\"replay-by-customer\"}")
+				.exchange()
+				.expectStatus().isForbidden();
+
+		webClient.delete()
+				.uri("/actuator/orderreplay")
+				.headers(headers -> headers.setBearerAuth(bjornTokens.accessToken()))
+				.exchange()
+				.expectStatus().isForbidden();
+	}
+
+	@Test
+	void whenEmployeeGetsOrderReplayProgressThenReturned() {
+		webClient.get()
+				.uri("/actuator/orderreplay")
+				.headers(headers -> headers.setBearerAuth(isabelleTokens.accessToken()))
+				.exchange()
+				.expectStatus().is2xxSuccessful();
+	}
 }
@@ -1,17 +1,25 @@
 package com.polarbookshop.orderservice.book;
 
 import com.polarbookshop.orderservice.config.ClientProperties;
+import okhttp3.mockwebserver.Dispatcher;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
 import org.junit.jupiter.api.*;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import java.io.IOException;
 import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
 
 /**
  * tests unitaires
@@ -33,7 +41,7 @@ public class BookClientTests {
                 .baseUrl(this.mockWebServer.url("/").toString())
                 .build();
         //configuration du bookClient avec le WebClient et ClientProperties
-        this.bookClient = new BookClient(webClient, new ClientProperties(null,3,3,100));
+        this.bookClient = new BookClient(webClient, new ClientProperties(null,3,3,100,250,0.99,0.1,0.5));
     }
 
     //arrêt du serveur après chaque @Test
@@ -84,4 +92,93 @@ public class BookClientTests {
                 .expectNextCount(0)
                 .verifyComplete();
     }
+
+    @Test
+    void whenCatalogAlwaysFailsThenOneBudgetTokenPerRetry() {
+        //erreur 500 à chaque tentative : 1 appel + maxRetry (3) retries
+        for (int i = 0; i < 4; i++) {
+            mockWebServer.enqueue(new MockResponse().setResponseCode(500));
+        }
+
+        StepVerifier.create(bookClient.getBookByIsbn("1234567892"))
+                .expectNextCount(0)
+                .verifyComplete();
+
+        assertThat(mockWebServer.getRequestCount()).isEqualTo(4);
+        //pas de jeton consommé pour l'échec final, qui n'est suivi d'aucun retry
+        assertThat(bookClient.retryBudget().acquiredCount()).isEqualTo(3);
+        assertThat(bookClient.retryBudget().exhaustedCount()).isZero();
+    }
+
+    @Test
+    void whenTooFewLatencySamplesThenTimeoutIsCeiling() {
+        assertThat(bookClient.currentTimeout()).isEqualTo(Duration.ofSeconds(3));
+    }
+
+    @Test
+    void whenCatalogRespondsFastThenTimeoutBelowCeiling() {
+        respondWithBook(0);
+
+        Flux.range(0, 20).concatMap(i -> bookClient.getBookByIsbn("1234567893")).blockLast();
+
+        //p99 des latences x marge, jamais sous timeoutFloor (250 ms)
+        assertThat(bookClient.currentTimeout())
+                .isGreaterThanOrEqualTo(Duration.ofMillis(250))
+                .isLessThan(Duration.ofSeconds(3));
+    }
+
+    @Test
+    void whenCatalogRespondsSlowlyThenTimeoutFollowsLatency() {
+        respondWithBook(200);
+
+        //appels concurrents : 20 échantillons d'environ 200 ms
+        Flux.range(0, 20).flatMap(i -> bookClient.getBookByIsbn("1234567894")).blockLast();
+
+        //p99 x marge (1,5), borné par le timeout max de 3 s
+        assertThat(bookClient.currentTimeout()).isBetween(Duration.ofMillis(300), Duration.ofSeconds(3));
+    }
+
+    @Test
+    void whenAttemptTimesOutThenRetried() {
+        respondWithBook(0);
+        //appels rapides : le timeout adaptatif descend sous le timeout max (3 s)
+        Flux.range(0, 20).concatMap(i -> bookClient.getBookByIsbn("1234567893")).blockLast();
+        long timeout = bookClient.currentTimeout().toMillis();
+        assertThat(timeout).isLessThan(3_000);
+        int requestsBefore = mockWebServer.getRequestCount();
+
+        //1ère tentative coupée par le timeout, le retry obtient le livre
+        var attempts = new AtomicInteger();
+        mockWebServer.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return bookResponse(attempts.getAndIncrement() == 0 ? timeout + 500 : 0);
+            }
+        });
+
+        StepVerifier.create(bookClient.getBookByIsbn("1234567893"))
+                .expectNextMatches(book -> book.isbn().equals("1234567893"))
+                .verifyComplete();
+        assertThat(mockWebServer.getRequestCount() - requestsBefore).isEqualTo(2);
+        assertThat(bookClient.retryBudget().acquiredCount()).isEqualTo(1);
+    }
+
+    //réponse identique à toutes les requêtes, après delayMillis
+    private void respondWithBook(long delayMillis) {
+        mockWebServer.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return bookResponse(delayMillis);
+            }
+        });
+    }
+
+    private static MockResponse bookResponse(long delayMillis) {
+        return new MockResponse()
+                .addHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .setBody("""
+                    {"isbn": "1234567893", "title": "Title", "author": "Author", "price": 9.90}
+                """)
+                .setHeadersDelay(delayMillis, TimeUnit.MILLISECONDS);
+    }
 }
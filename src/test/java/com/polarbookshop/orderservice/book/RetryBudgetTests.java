@@ -0,0 +1,45 @@
+package com.polarbookshop.orderservice.book;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * tests unitaires du budget de retry
+ */
+public class RetryBudgetTests {
+    private final AtomicLong nanoClock = new AtomicLong();
+    private final RetryBudget retryBudget = new RetryBudget(0.1, nanoClock::get);
+
+    private long acquiredRetries(int attempts) {
+        return IntStream.range(0, attempts).filter(i -> retryBudget.tryAcquire()).count();
+    }
+
+    @Test
+    void whenLowTrafficThenMinimumRetriesAllowed() {
+        retryBudget.recordCall();
+
+        assertThat(acquiredRetries(50)).isEqualTo(RetryBudget.MIN_RETRIES_PER_WINDOW);
+        assertThat(retryBudget.exhaustedCount()).isEqualTo(50 - RetryBudget.MIN_RETRIES_PER_WINDOW);
+    }
+
+    @Test
+    void whenHighTrafficThenRetriesCappedAtRatioOfCalls() {
+        IntStream.range(0, 1_000).forEach(i -> retryBudget.recordCall());
+
+        assertThat(acquiredRetries(500)).isEqualTo(100);
+    }
+
+    @Test
+    void whenWindowElapsedThenBudgetRestored() {
+        acquiredRetries(50);
+
+        nanoClock.addAndGet(TimeUnit.SECONDS.toNanos(RetryBudget.WINDOW_SECONDS));
+
+        assertThat(retryBudget.tryAcquire()).isTrue();
+    }
+}
@@ -0,0 +1,82 @@
+package com.polarbookshop.orderservice.event;
+
+import com.polarbookshop.orderservice.config.ConsumerLaneProperties;
+import com.polarbookshop.orderservice.monitoring.HttpLatencyFilter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.cloud.stream.binding.BindingsLifecycleController;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * tests unitaires de la mise en pause du consommateur selon le SLO de latence HTTP
+ */
+public class ConsumerLaneGovernorTests {
+    private final HttpLatencyFilter httpLatencyFilter = new HttpLatencyFilter();
+    private final BindingsLifecycleController bindingsLifecycleController = Mockito.mock(BindingsLifecycleController.class);
+    private ConsumerLane consumerLane;
+    private ConsumerLaneGovernor governor;
+
+    @BeforeEach
+    void setUp() {
+        var properties = new ConsumerLaneProperties(1, 3, Duration.ofMillis(10), Duration.ofSeconds(5), 5);
+        consumerLane = new ConsumerLane(properties);
+        governor = new ConsumerLaneGovernor(properties, consumerLane, httpLatencyFilter, bindingsLifecycleController);
+    }
+
+    @AfterEach
+    void tearDown() {
+        consumerLane.destroy();
+    }
+
+    //requêtes HTTP simulées traversant le filtre avec la latence donnée
+    private void httpRequests(int count, Duration latency) {
+        Flux.range(0, count)
+                .flatMap(i -> httpLatencyFilter.filter(
+                        MockServerWebExchange.from(MockServerHttpRequest.get("/orders")),
+                        exchange -> Mono.delay(latency).then()))
+                .blockLast();
+    }
+
+    @Test
+    void whenHttpLatencyAboveSloThenConsumerPausedThenResumed() {
+        httpRequests(10, Duration.ofMillis(50));
+        governor.check();
+
+        assertThat(governor.isPaused()).isTrue();
+        Mockito.verify(bindingsLifecycleController)
+                .changeState(ConsumerLaneGovernor.CONSUMER_BINDING, BindingsLifecycleController.State.STOPPED);
+
+        //intervalle suivant sans trafic HTTP : plus de pression, le consommateur reprend
+        governor.check();
+
+        assertThat(governor.isPaused()).isFalse();
+        Mockito.verify(bindingsLifecycleController)
+                .changeState(ConsumerLaneGovernor.CONSUMER_BINDING, BindingsLifecycleController.State.STARTED);
+    }
+
+    @Test
+    void whenTooFewHttpRequestsThenConsumerNotPaused() {
+        httpRequests(2, Duration.ofMillis(50));
+        governor.check();
+
+        assertThat(governor.isPaused()).isFalse();
+        Mockito.verifyNoInteractions(bindingsLifecycleController);
+    }
+
+    @Test
+    void whenMessageTrackedThenLaneUtilizationReported() {
+        Mono<Integer> processing = consumerLane.track(Mono.fromSupplier(consumerLane::inFlight));
+
+        assertThat(processing.block()).isEqualTo(1);
+        assertThat(consumerLane.inFlight()).isZero();
+    }
+}
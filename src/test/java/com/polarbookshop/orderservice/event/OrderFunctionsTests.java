@@ -0,0 +1,37 @@
+package com.polarbookshop.orderservice.event;
+
+import com.polarbookshop.orderservice.order.domain.OrderCache;
+import com.polarbookshop.orderservice.order.domain.OrderService;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * tests unitaires des fonctions SCF : le consommateur des invalidations n'existe que si la diffusion est activée
+ */
+public class OrderFunctionsTests {
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withUserConfiguration(OrderFunctions.class)
+            .withBean(OrderService.class, () -> mock(OrderService.class))
+            .withBean(ConsumerLane.class, () -> mock(ConsumerLane.class))
+            .withBean(OrderCache.class, () -> mock(OrderCache.class));
+
+    @Test
+    void whenBroadcastDisabledThenNoInvalidationConsumer() {
+        contextRunner
+                .withPropertyValues("polar.order-cache.broadcast=false")
+                .run(context -> {
+                    assertThat(context).hasBean("consumeOrderDispatchedMessages");
+                    assertThat(context).doesNotHaveBean("consumeOrderCacheInvalidations");
+                });
+    }
+
+    @Test
+    void whenBroadcastEnabledThenInvalidationConsumerRegistered() {
+        contextRunner
+                .withPropertyValues("polar.order-cache.broadcast=true")
+                .run(context -> assertThat(context).hasBean("consumeOrderCacheInvalidations"));
+    }
+}
@@ -0,0 +1,46 @@
+package com.polarbookshop.orderservice.event.replay;
+
+import com.polarbookshop.orderservice.order.domain.OrderStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * tests unitaires de l'endpoint actuator de rejeu : un démarrage concurrent répond 409 et non 500
+ */
+public class OrderReplayEndpointTests {
+    private final OrderReplayService orderReplayService = mock(OrderReplayService.class);
+    private final OrderReplayEndpoint endpoint = new OrderReplayEndpoint(orderReplayService);
+
+    @Test
+    void whenReplayStartedThenOk() {
+        var started = progress("started");
+        when(orderReplayService.start(any())).thenReturn(started);
+
+        var response = endpoint.start("started", null, null, null, null, null);
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(response.getBody()).isEqualTo(started);
+    }
+
+    @Test
+    void whenReplayAlreadyRunningThenConflictWithCurrentProgress() {
+        var running = progress("running");
+        when(orderReplayService.start(any())).thenThrow(new OrderReplayService.ReplayAlreadyRunningException(running));
+
+        var response = endpoint.start("concurrent", OrderStatus.ACCEPTED, null, null, null, null);
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.CONFLICT.value());
+        assertThat(response.getBody()).isEqualTo(running);
+    }
+
+    private static ReplayProgress progress(String name) {
+        return new ReplayProgress(name, ReplayProgress.State.RUNNING, 0, null, 0, Instant.now(), null, null);
+    }
+}
@@ -0,0 +1,169 @@
+package com.polarbookshop.orderservice.event.replay;
+
+import com.polarbookshop.orderservice.config.ReplayProperties;
+import com.polarbookshop.orderservice.event.OrderAcceptedMessage;
+import com.polarbookshop.orderservice.order.domain.OrderRepository;
+import com.polarbookshop.orderservice.order.domain.OrderStatus;
+import com.polarbookshop.orderservice.shard.ShardRing;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.stream.function.StreamBridge;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * tests unitaires du rejeu des messages order-accepted : lots, reprise sur point de reprise, arrêt et échec
+ */
+public class OrderReplayServiceTests {
+    private static final int BATCH_SIZE = 2;
+
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private final ReplayCheckpointRepository checkpointRepository = mock(ReplayCheckpointRepository.class);
+    private final StreamBridge streamBridge = mock(StreamBridge.class);
+    //ids des commandes ACCEPTED en base
+    private List<Long> acceptedOrderIds = List.of();
+    //afterId des pages demandées
+    private final List<Long> requestedPages = new CopyOnWriteArrayList<>();
+    private OrderReplayService replayService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        ObjectProvider<ShardRing> noSharding = mock(ObjectProvider.class);
+        replayService = new OrderReplayService(orderRepository, checkpointRepository, streamBridge,
+                new ReplayProperties(BATCH_SIZE, Duration.ofMillis(1)), noSharding, new SimpleMeterRegistry());
+
+        //page = ids > afterId, dans la limite demandée
+        when(orderRepository.findIdsByStatusAfter(anyString(), anyLong(), anyLong(), any(), any(), anyInt()))
+                .thenAnswer(invocation -> {
+                    long afterId = invocation.getArgument(1);
+                    int limit = invocation.getArgument(5);
+                    requestedPages.add(afterId);
+                    return Flux.fromIterable(acceptedOrderIds)
+                            .filter(id -> id > afterId)
+                            .take(limit);
+                });
+        when(checkpointRepository.findById(anyString())).thenReturn(Mono.empty());
+        when(checkpointRepository.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(streamBridge.send(eq("acceptOrder-out-0"), any())).thenReturn(true);
+    }
+
+    @Test
+    void whenReplayStartedThenOrdersPublishedByBatch() {
+        acceptedOrderIds = List.of(1L, 2L, 3L, 4L, 5L);
+
+        replayService.start(request("by-batch"));
+
+        assertThat(awaitState(ReplayProgress.State.COMPLETED).published()).isEqualTo(5);
+        //pagination sur clé : une page de BATCH_SIZE ids par lot, jusqu'à la page vide
+        assertThat(requestedPages).containsExactly(0L, 2L, 4L, 5L);
+        assertThat(publishedOrderIds()).containsExactly(1L, 2L, 3L, 4L, 5L);
+
+        var checkpoints = ArgumentCaptor.forClass(ReplayCheckpoint.class);
+        verify(checkpointRepository, atLeastOnce()).save(checkpoints.capture());
+        assertThat(checkpoints.getAllValues())
+                .extracting(ReplayCheckpoint::lastOrderId, ReplayCheckpoint::completed)
+                .containsExactly(
+                        tuple(2L, false),
+                        tuple(4L, false),
+                        tuple(5L, false),
+                        tuple(5L, true));
+    }
+
+    @Test
+    void whenCheckpointExistsThenReplayResumedAfterIt() {
+        acceptedOrderIds = List.of(1L, 2L, 3L, 4L, 5L);
+        //rejeu interrompu après la commande 3
+        when(checkpointRepository.findById("resumed"))
+                .thenReturn(Mono.just(new ReplayCheckpoint("resumed", OrderStatus.ACCEPTED, 3L, 3L, false, Instant.now(), 2)));
+
+        replayService.start(request("resumed"));
+
+        assertThat(awaitState(ReplayProgress.State.COMPLETED).published()).isEqualTo(2);
+        assertThat(requestedPages.get(0)).isEqualTo(3L);
+        assertThat(publishedOrderIds()).containsExactly(4L, 5L);
+    }
+
+    @Test
+    void whenCheckpointCompletedThenNothingPublished() {
+        acceptedOrderIds = List.of(1L, 2L);
+        when(checkpointRepository.findById("done"))
+                .thenReturn(Mono.just(new ReplayCheckpoint("done", OrderStatus.ACCEPTED, 2L, 2L, true, Instant.now(), 3)));
+
+        replayService.start(request("done"));
+
+        assertThat(awaitState(ReplayProgress.State.COMPLETED).published()).isZero();
+        assertThat(requestedPages).isEmpty();
+    }
+
+    @Test
+    void whenReplayStoppedThenStateStopped() {
+        //la base ne répond pas : le rejeu reste en cours jusqu'à son interruption
+        when(orderRepository.findIdsByStatusAfter(anyString(), anyLong(), anyLong(), any(), any(), anyInt()))
+                .thenReturn(Flux.never());
+
+        assertThat(replayService.start(request("stopped")).state()).isEqualTo(ReplayProgress.State.RUNNING);
+        //un seul rejeu à la fois : le refus porte l'avancement du rejeu en cours
+        assertThatExceptionOfType(OrderReplayService.ReplayAlreadyRunningException.class)
+                .isThrownBy(() -> replayService.start(request("concurrent")))
+                .satisfies(exception -> assertThat(exception.progress().name()).isEqualTo("stopped"));
+
+        assertThat(replayService.stop().state()).isEqualTo(ReplayProgress.State.STOPPED);
+        assertThat(replayService.progress().finishedAt()).isNotNull();
+    }
+
+    @Test
+    void whenPublicationFailsThenStateFailed() {
+        acceptedOrderIds = List.of(1L, 2L, 3L);
+        when(streamBridge.send(eq("acceptOrder-out-0"), any())).thenReturn(false);
+
+        replayService.start(request("failed"));
+
+        var progress = awaitState(ReplayProgress.State.FAILED);
+        assertThat(progress.error()).contains("not sent");
+        //pas de point de reprise pour un lot non publié : il sera rejoué à la reprise
+        verify(checkpointRepository, never()).save(any());
+    }
+
+    private static OrderReplayService.ReplayRequest request(String name) {
+        return new OrderReplayService.ReplayRequest(name, OrderStatus.ACCEPTED, null, null, null, null);
+    }
+
+    private List<Long> publishedOrderIds() {
+        var messages = ArgumentCaptor.forClass(Object.class);
+        verify(streamBridge, atLeastOnce()).send(eq("acceptOrder-out-0"), messages.capture());
+        return messages.getAllValues().stream()
+                .map(message -> ((OrderAcceptedMessage) message).orderId())
+                .toList();
+    }
+
+    //interroge l'avancement jusqu'à l'état attendu (5 s max)
+    private ReplayProgress awaitState(ReplayProgress.State state) {
+        return Flux.interval(Duration.ofMillis(10))
+                .map(tick -> replayService.progress())
+                .filter(progress -> progress.state() == state)
+                .blockFirst(Duration.ofSeconds(5));
+    }
+}
@@ -0,0 +1,71 @@
+package com.polarbookshop.orderservice.monitoring;
+
+import com.polarbookshop.orderservice.config.EventLoopProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * tests unitaires du mode de détection des appels bloquants
+ * BlockHound reste installé jusqu'à l'arrêt de la JVM : la classe est exécutée seule dans sa propre JVM
+ * par la tâche blockHoundTest (lancée avec -XX:+AllowRedefinitionToAddDeleteMethods, cf. build.gradle)
+ */
+@Tag("blockhound")
+public class BlockingCallDetectionTests {
+    private BlockingCallRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new BlockingCallRegistry(new EventLoopProperties(Duration.ofSeconds(1), true, 2));
+        BlockingCallDetection.install(registry);
+    }
+
+    @Test
+    void whenBlockingOnNonBlockingThreadThenCallRecorded() {
+        Mono.fromRunnable(BlockingCallDetectionTests::sleep)
+                .subscribeOn(Schedulers.parallel()) //thread non bloquant au sens de Reactor
+                .block();
+
+        assertThat(registry.offenders()).singleElement().satisfies(offender -> {
+            assertThat(offender.blockingMethod()).contains("sleep");
+            assertThat(offender.origin()).contains(BlockingCallDetectionTests.class.getName());
+            assertThat(offender.stackTrace()).isNotEmpty();
+        });
+    }
+
+    @Test
+    void whenBlockingOnBoundedElasticThenNothingRecorded() {
+        Mono.fromRunnable(BlockingCallDetectionTests::sleep)
+                .subscribeOn(Schedulers.boundedElastic()) //thread autorisé à bloquer
+                .block();
+
+        assertThat(registry.offenders()).isEmpty();
+    }
+
+    @Test
+    void whenRegistryFullThenNewOffendersIgnored() {
+        var stackTrace = new Exception().getStackTrace();
+        registry.record("a", Thread.currentThread(), stackTrace);
+        registry.record("b", Thread.currentThread(), stackTrace);
+        registry.record("c", Thread.currentThread(), stackTrace);
+        registry.record("a", Thread.currentThread(), stackTrace);
+
+        assertThat(registry.offenders())
+                .extracting(BlockingCallRegistry.BlockingCall::blockingMethod)
+                .containsExactly("a", "b");
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(5);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
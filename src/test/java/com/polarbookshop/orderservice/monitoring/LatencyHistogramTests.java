@@ -0,0 +1,73 @@
+package com.polarbookshop.orderservice.monitoring;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+/**
+ * tests unitaires de l'histogramme de latences enregistré sans verrou
+ */
+public class LatencyHistogramTests {
+
+    @Test
+    void whenNoSampleThenPercentileIsZero() {
+        var histogram = new LatencyHistogram();
+
+        assertThat(histogram.count()).isZero();
+        assertThat(histogram.percentile(0.99)).isZero();
+    }
+
+    @Test
+    void whenLatenciesBelowLinearLimitThenPercentileExact() {
+        var histogram = new LatencyHistogram();
+        LongStream.rangeClosed(1, 50).forEach(histogram::record);
+
+        assertThat(histogram.count()).isEqualTo(50);
+        assertThat(histogram.percentile(0.9)).isEqualTo(45);
+        assertThat(histogram.percentile(1.0)).isEqualTo(50);
+    }
+
+    @Test
+    void whenLatenciesHighThenPercentileWithinBucketPrecision() {
+        var histogram = new LatencyHistogram();
+        LongStream.rangeClosed(1, 1_000).forEach(histogram::record);
+
+        //borne haute du bucket : jamais sous la valeur réelle, au plus 1/16e au-dessus
+        assertThat(histogram.percentile(0.99)).isBetween(990L, 990L + 990L / 16);
+        assertThat(histogram.percentile(0.5)).isBetween(500L, 500L + 500L / 16);
+    }
+
+    @Test
+    void whenLatencyOutOfRangeThenRecordedInEdgeBuckets() {
+        var histogram = new LatencyHistogram();
+        histogram.record(-1);
+        histogram.record(Long.MAX_VALUE);
+
+        assertThat(histogram.count()).isEqualTo(2);
+        assertThat(histogram.percentile(0.5)).isZero();
+        assertThat(histogram.percentile(1.0)).isGreaterThanOrEqualTo(1L << 20);
+    }
+
+    @Test
+    void whenRecordedConcurrentlyThenNoSampleLost() {
+        var histogram = new LatencyHistogram();
+        Flux.range(0, 8)
+                .parallel()
+                .runOn(Schedulers.parallel())
+                .doOnNext(thread -> LongStream.range(0, 10_000).forEach(histogram::record))
+                .sequential()
+                .blockLast();
+
+        assertThat(histogram.count()).isEqualTo(80_000);
+    }
+
+    @Test
+    void whenPercentileOutOfRangeThenRejected() {
+        assertThatIllegalArgumentException().isThrownBy(() -> new LatencyHistogram().percentile(0));
+    }
+}
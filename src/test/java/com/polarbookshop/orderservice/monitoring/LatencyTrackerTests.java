@@ -0,0 +1,61 @@
+package com.polarbookshop.orderservice.monitoring;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+/**
+ * tests unitaires du calcul de percentile sur la fenêtre glissante des latences
+ */
+public class LatencyTrackerTests {
+
+    @Test
+    void whenNoSampleThenPercentileIsZero() {
+        var tracker = new LatencyTracker(10, 0.99);
+
+        assertThat(tracker.size()).isZero();
+        assertThat(tracker.percentile()).isZero();
+    }
+
+    @Test
+    void whenSamplesRecordedThenPercentileComputed() {
+        var tracker = new LatencyTracker(100, 0.9);
+        LongStream.rangeClosed(1, 20).forEach(tracker::record);
+
+        //90e percentile de 1..20 : 18e valeur
+        assertThat(tracker.percentile()).isEqualTo(18);
+    }
+
+    @Test
+    void whenWindowFullThenOldestSamplesEvicted() {
+        var tracker = new LatencyTracker(10, 0.5);
+        LongStream.rangeClosed(1, 10).forEach(latency -> tracker.record(1_000));
+        LongStream.rangeClosed(1, 10).forEach(latency -> tracker.record(latency));
+
+        assertThat(tracker.size()).isEqualTo(10);
+        //les latences de 1 s sont sorties de la fenêtre
+        assertThat(tracker.percentile()).isEqualTo(5);
+    }
+
+    @Test
+    void whenWindowLargeThenPercentileRecomputedByBatch() {
+        var tracker = new LatencyTracker(1_000, 1.0);
+        LongStream.rangeClosed(1, 40).forEach(latency -> tracker.record(10));
+
+        //un pic isolé n'est pris en compte qu'au prochain recalcul
+        tracker.record(500);
+        assertThat(tracker.percentile()).isEqualTo(10);
+
+        LongStream.rangeClosed(1, 32).forEach(latency -> tracker.record(10));
+        assertThat(tracker.percentile()).isEqualTo(500);
+    }
+
+    @Test
+    void whenPercentileOutOfRangeThenRejected() {
+        assertThatIllegalArgumentException().isThrownBy(() -> new LatencyTracker(10, 0));
+        assertThatIllegalArgumentException().isThrownBy(() -> new LatencyTracker(10, 1.5));
+    }
+}
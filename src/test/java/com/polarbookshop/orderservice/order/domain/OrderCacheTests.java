@@ -0,0 +1,76 @@
+package com.polarbookshop.orderservice.order.domain;
+
+import com.polarbookshop.orderservice.config.OrderCacheProperties;
+import com.polarbookshop.orderservice.event.OrderCacheInvalidationMessage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.cloud.stream.function.StreamBridge;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * tests unitaires du cache des commandes par utilisateur
+ */
+public class OrderCacheTests {
+    private OrderCache orderCache;
+    private StreamBridge streamBridge;
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        streamBridge = Mockito.mock(StreamBridge.class);
+        orderCache = new OrderCache(new OrderCacheProperties(true, DataSize.ofMegabytes(1), Duration.ofMinutes(1), true),
+                streamBridge, new SimpleMeterRegistry());
+    }
+
+    private static Order order(long id, OrderStatus status) {
+        return new Order(id, "1234567890", "Title - Author", 9.90, 1, status, null, null, "bjorn", "bjorn", 0);
+    }
+
+    //chargement depuis la "base" : compte le nombre de lectures
+    private Flux<Order> load(String userId) {
+        loads.incrementAndGet();
+        return Flux.just(order(1, OrderStatus.ACCEPTED), order(2, OrderStatus.ACCEPTED));
+    }
+
+    @Test
+    void whenOrdersReadTwiceThenLoadedOnce() {
+        StepVerifier.create(orderCache.orders("bjorn", this::load)).expectNextCount(2).verifyComplete();
+        StepVerifier.create(orderCache.orders("bjorn", this::load)).expectNextCount(2).verifyComplete();
+
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void whenOrderSavedThenCachedListPatched() {
+        StepVerifier.create(orderCache.orders("bjorn", this::load)).expectNextCount(2).verifyComplete();
+
+        orderCache.orderSaved(order(2, OrderStatus.DISPATCHED)); //mise à jour d'une commande existante
+        orderCache.orderSaved(order(3, OrderStatus.ACCEPTED)); //nouvelle commande
+
+        StepVerifier.create(orderCache.orders("bjorn", this::load).map(Order::status))
+                .expectNext(OrderStatus.ACCEPTED, OrderStatus.DISPATCHED, OrderStatus.ACCEPTED)
+                .verifyComplete();
+        assertThat(loads).hasValue(1);
+        //chaque écriture est diffusée aux autres instances
+        Mockito.verify(streamBridge, Mockito.times(2)).send(Mockito.eq("orderCacheInvalidation-out-0"), Mockito.any(Object.class));
+    }
+
+    @Test
+    void whenPeerInvalidatesThenListReloaded() {
+        StepVerifier.create(orderCache.orders("bjorn", this::load)).expectNextCount(2).verifyComplete();
+
+        orderCache.onInvalidation(new OrderCacheInvalidationMessage("bjorn", "another-instance"));
+
+        StepVerifier.create(orderCache.orders("bjorn", this::load)).expectNextCount(2).verifyComplete();
+        assertThat(loads).hasValue(2);
+    }
+}
@@ -13,6 +13,7 @@ import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 import reactor.test.StepVerifier;
 
+import java.time.Instant;
 import java.util.Objects;
 
 @DataR2dbcTest //active l'autoconfiguration pour ce qui relève des tests utilisant R2DBC & le scan des composants est limité au repo et aux entités
@@ -86,5 +87,48 @@ public class OrderRepositoryR2dbcTests {
                 .verifyComplete();
     }
 
+    @Test
+    @WithMockUser("jon")
+    void whenFindSummariesByCreatedByThenProjectionReturned(){
+        var rejectedOrder = OrderService.buildRejectedOrder("1234567894",2);
+        //sauvegarde d'une commande de jon puis lecture de la vue compacte de ses commandes
+        StepVerifier.create(orderRepository.save(rejectedOrder)
+                        .thenMany(orderRepository.findAllByCreatedBy("jon", OrderSummary.class)))
+                .expectNextMatches( summary -> summary.bookIsbn().equals("1234567894")
+                        && summary.quantity() == 2
+                        && summary.status().equals(OrderStatus.REJECTED)
+                        && Objects.nonNull(summary.createdDate())
+                )
+                .verifyComplete();
+    }
+
+    @Test
+    void whenFindIdsByStatusAfterThenNextPageReturnedInIdOrder(){
+        var first = OrderService.buildRejectedOrder("1234567895",1);
+        var second = OrderService.buildRejectedOrder("1234567896",1);
+        //2 commandes sauvegardées puis lecture de la page suivant la 1ère (pagination sur clé)
+        StepVerifier.create(orderRepository.save(first)
+                        .flatMapMany(savedFirst -> orderRepository.save(second)
+                                .flatMapMany(savedSecond -> orderRepository.findIdsByStatusAfter(OrderStatus.REJECTED.name(),
+                                                savedFirst.id(), Long.MAX_VALUE, Instant.EPOCH, Instant.now().plusSeconds(60), 10)
+                                        .filter(id -> id.equals(savedSecond.id()) || id.equals(savedFirst.id())))))
+                .expectNextCount(1)
+                .verifyComplete();
+    }
+
+    @Test
+    void whenUpdateStatusIfChangedTwiceThenSecondUpdateSkipped(){
+        var rejectedOrder = OrderService.buildRejectedOrder("1234567897",1);
+        //1ère mise à jour appliquée (version incrémentée), la 2nde ne réécrit pas une commande déjà DISPATCHED
+        StepVerifier.create(orderRepository.save(rejectedOrder)
+                        .flatMap(saved -> orderRepository.updateStatusIfChanged(saved.id(), OrderStatus.DISPATCHED.name(), Instant.now())
+                                .filter(updated -> updated.status().equals(OrderStatus.DISPATCHED)
+                                        && updated.version() == saved.version() + 1)
+                                .flatMap(updated -> orderRepository.updateStatusIfChanged(saved.id(), OrderStatus.DISPATCHED.name(), Instant.now())
+                                        .map(Order::version)
+                                        .defaultIfEmpty(-1))))
+                .expectNext(-1)
+                .verifyComplete();
+    }
 
 }
@@ -0,0 +1,160 @@
+package com.polarbookshop.orderservice.order.domain;
+
+import com.polarbookshop.orderservice.book.Book;
+import com.polarbookshop.orderservice.book.BookClient;
+import com.polarbookshop.orderservice.config.ConsumerLaneProperties;
+import com.polarbookshop.orderservice.config.DispatchDedupeProperties;
+import com.polarbookshop.orderservice.config.OrderCacheProperties;
+import com.polarbookshop.orderservice.event.ConsumerLane;
+import com.polarbookshop.orderservice.event.OrderDispatchedMessage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.stream.function.StreamBridge;
+import org.springframework.transaction.ReactiveTransaction;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * tests unitaires de la création de commande : le cache n'est mis à jour qu'une fois la transaction validée
+ * et du passage à DISPATCHED : seules les commandes trouvées restent dans la fenêtre de dédoublonnage
+ */
+public class OrderServiceTests {
+    private static final String ISBN = "1234567890";
+
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private final BookClient bookClient = mock(BookClient.class);
+    private final StreamBridge streamBridge = mock(StreamBridge.class);
+    private final ReactiveTransactionManager transactionManager = mock(ReactiveTransactionManager.class);
+    private OrderCache orderCache;
+    private OrderService orderService;
+    private final ConsumerLane consumerLane = new ConsumerLane(
+            new ConsumerLaneProperties(1, 2, Duration.ofMillis(100), Duration.ofSeconds(1), 10));
+
+    @BeforeEach
+    void setUp() {
+        var meterRegistry = new SimpleMeterRegistry();
+        orderCache = new OrderCache(new OrderCacheProperties(true, DataSize.ofMegabytes(1), Duration.ofMinutes(1), true),
+                streamBridge, meterRegistry);
+        orderService = new OrderService(orderRepository, bookClient, streamBridge, orderCache,
+                new DispatchCoalescer(new DispatchDedupeProperties(16, Duration.ofMinutes(1)), meterRegistry),
+                TransactionalOperator.create(transactionManager));
+
+        when(bookClient.getBookByIsbn(ISBN)).thenReturn(Mono.just(new Book(ISBN, "Title", "Author", 9.90)));
+        when(orderRepository.save(any())).thenAnswer(invocation -> {
+            Order order = invocation.getArgument(0);
+            return Mono.just(new Order(2L, order.bookIsbn(), order.bookName(), order.bookPrice(), order.quantity(),
+                    order.status(), null, null, "bjorn", "bjorn", 1));
+        });
+        when(transactionManager.getReactiveTransaction(any())).thenReturn(Mono.just(mock(ReactiveTransaction.class)));
+        when(transactionManager.commit(any())).thenReturn(Mono.empty());
+        when(transactionManager.rollback(any())).thenReturn(Mono.empty());
+        when(streamBridge.send(eq("acceptOrder-out-0"), any())).thenReturn(true);
+
+        //liste de bjorn déjà en cache : sa commande 1
+        StepVerifier.create(orderCache.orders("bjorn", userId -> Flux.just(existingOrder())))
+                .expectNextCount(1)
+                .verifyComplete();
+    }
+
+    @AfterEach
+    void tearDown() {
+        consumerLane.destroy();
+    }
+
+    @Test
+    void whenOrderCommittedThenCachedListPatched() {
+        StepVerifier.create(orderService.submitOrder(ISBN, 1))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        StepVerifier.create(cachedOrderIds())
+                .expectNext(1L, 2L)
+                .verifyComplete();
+        verify(streamBridge).send(eq(OrderCache.INVALIDATION_BINDING), any());
+    }
+
+    @Test
+    void whenPublicationFailsThenCacheUnchanged() {
+        when(streamBridge.send(eq("acceptOrder-out-0"), any())).thenThrow(new IllegalStateException("Broker unavailable"));
+
+        StepVerifier.create(orderService.submitOrder(ISBN, 1))
+                .verifyError(IllegalStateException.class);
+
+        assertCacheUnchanged();
+        verify(transactionManager, atLeastOnce()).rollback(any());
+    }
+
+    @Test
+    void whenCommitFailsThenCacheUnchanged() {
+        when(transactionManager.commit(any())).thenReturn(Mono.error(new IllegalStateException("Commit failed")));
+
+        StepVerifier.create(orderService.submitOrder(ISBN, 1))
+                .verifyError(IllegalStateException.class);
+
+        assertCacheUnchanged();
+    }
+
+    @Test
+    void whenDispatchedOrderUnknownThenRedeliveryNotSuppressed() {
+        //aucune ligne pour cet id (commande inconnue ou shard mal routé)
+        when(orderRepository.updateStatusIfChanged(eq(3L), eq(OrderStatus.DISPATCHED.name()), any())).thenReturn(Mono.empty());
+        when(orderRepository.existsById(3L)).thenReturn(Mono.just(false));
+
+        dispatch(3L);
+        dispatch(3L);
+
+        //la redélivrance n'est pas écartée par la fenêtre de dédoublonnage
+        verify(orderRepository, times(2)).updateStatusIfChanged(eq(3L), eq(OrderStatus.DISPATCHED.name()), any());
+    }
+
+    @Test
+    void whenDispatchedOrderAlreadyDispatchedThenRedeliverySuppressed() {
+        when(orderRepository.updateStatusIfChanged(eq(1L), eq(OrderStatus.DISPATCHED.name()), any())).thenReturn(Mono.empty());
+        when(orderRepository.existsById(1L)).thenReturn(Mono.just(true));
+
+        dispatch(1L);
+        dispatch(1L);
+
+        verify(orderRepository, times(1)).updateStatusIfChanged(eq(1L), eq(OrderStatus.DISPATCHED.name()), any());
+    }
+
+    private void dispatch(long orderId) {
+        StepVerifier.create(orderService.updateOrdersWithDispatchedStatus(
+                        Flux.just(new OrderDispatchedMessage(orderId)), consumerLane))
+                .verifyComplete();
+    }
+
+    //la liste en cache ne contient pas la commande non validée et aucune invalidation n'a été diffusée
+    private void assertCacheUnchanged() {
+        StepVerifier.create(cachedOrderIds())
+                .expectNext(1L)
+                .verifyComplete();
+        verify(streamBridge, never()).send(eq(OrderCache.INVALIDATION_BINDING), any());
+    }
+
+    private Flux<Long> cachedOrderIds() {
+        return orderCache.orders("bjorn", userId -> Flux.error(new IllegalStateException("Orders should be cached")))
+                .map(Order::id);
+    }
+
+    private static Order existingOrder() {
+        return new Order(1L, ISBN, "Title - Author", 9.90, 1, OrderStatus.DISPATCHED, null, null, "bjorn", "bjorn", 2);
+    }
+}
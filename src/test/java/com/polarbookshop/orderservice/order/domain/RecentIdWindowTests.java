@@ -0,0 +1,74 @@
+package com.polarbookshop.orderservice.order.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * tests unitaires de la fenêtre des ids de commandes traités récemment
+ */
+public class RecentIdWindowTests {
+    private final AtomicLong nanoClock = new AtomicLong();
+
+    private RecentIdWindow window(int capacity) {
+        return new RecentIdWindow(capacity, TimeUnit.SECONDS.toNanos(60), nanoClock::get);
+    }
+
+    @Test
+    void whenIdAddedTwiceThenSecondAddRejected() {
+        var window = window(8);
+
+        assertThat(window.add(42)).isTrue();
+        assertThat(window.add(42)).isFalse();
+        assertThat(window.contains(42)).isTrue();
+    }
+
+    @Test
+    void whenCapacityReachedThenOldestIdEvicted() {
+        var window = window(4);
+        LongStream.rangeClosed(1, 5).forEach(window::add);
+
+        assertThat(window.size()).isEqualTo(4);
+        assertThat(window.contains(1)).isFalse();
+        assertThat(LongStream.rangeClosed(2, 5).allMatch(window::contains)).isTrue();
+    }
+
+    @Test
+    void whenWindowElapsedThenIdExpired() {
+        var window = window(8);
+        window.add(42);
+
+        nanoClock.addAndGet(TimeUnit.SECONDS.toNanos(61));
+
+        assertThat(window.contains(42)).isFalse();
+        assertThat(window.add(42)).isTrue();
+    }
+
+    @Test
+    void whenIdRemovedThenItCanBeAddedAgain() {
+        var window = window(8);
+        window.add(42);
+        window.remove(42);
+
+        assertThat(window.contains(42)).isFalse();
+        assertThat(window.add(42)).isTrue();
+    }
+
+    @Test
+    void whenManyIdsChurnThenMembershipStaysExact() {
+        var window = window(1_000);
+        //ids consécutifs et ids avec shard encodé dans les bits de poids fort : collisions et décalages arrière
+        LongStream.rangeClosed(1, 10_000).forEach(id -> {
+            window.add(id);
+            window.add((3L << 48) + id);
+        });
+
+        assertThat(window.size()).isEqualTo(1_000);
+        assertThat(LongStream.rangeClosed(9_501, 10_000).allMatch(id -> window.contains(id) && window.contains((3L << 48) + id))).isTrue();
+        assertThat(window.contains(9_500)).isFalse();
+    }
+}
@@ -4,6 +4,7 @@ import com.polarbookshop.orderservice.config.SecurityConfig;
 import com.polarbookshop.orderservice.order.domain.Order;
 import com.polarbookshop.orderservice.order.domain.OrderService;
 import com.polarbookshop.orderservice.order.domain.OrderStatus;
+import com.polarbookshop.orderservice.order.domain.OrderSummary;
 import org.junit.jupiter.api.Test;
 import org.mockito.BDDMockito;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,8 +15,11 @@ import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
 import org.springframework.security.test.web.reactive.server.SecurityMockServerConfigurers;
 import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Instant;
+
 import static org.assertj.core.api.Assertions.assertThat;
 
 @WebFluxTest(controllers = OrderController.class) //spécifie une classe de Test faisant le focus sur les composants Spring WebFlux
@@ -52,4 +56,21 @@ public class OrderControllerWebFluxTests {
                     assertThat(actualOrder.status()).isEqualTo(OrderStatus.REJECTED);
                 });
     }
+
+    @Test
+    void whenSummaryViewRequestedThenReturnOrderSummaries(){
+        var summary = new OrderSummary(1L, "1234567890", "Title - Author", 9.90, 1, OrderStatus.ACCEPTED, Instant.now());
+        BDDMockito.given(orderService.getOrderSummaries("bjorn")).willReturn(Flux.just(summary));
+
+        webClient
+                .mutateWith(SecurityMockServerConfigurers.mockJwt()
+                        .jwt(jwt -> jwt.subject("bjorn")))
+                .get()
+                .uri("/orders?view=summary")
+                .exchange()
+                .expectStatus().is2xxSuccessful()
+                .expectBodyList(OrderSummary.class).value(summaries ->
+                        assertThat(summaries).singleElement().satisfies(actualSummary ->
+                                assertThat(actualSummary.id()).isEqualTo(1L)));
+    }
 }
@@ -0,0 +1,93 @@
+package com.polarbookshop.orderservice.order.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.polarbookshop.orderservice.order.domain.Order;
+import com.polarbookshop.orderservice.order.domain.OrderService;
+import com.polarbookshop.orderservice.order.domain.OrderStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * tests unitaires de l'encodeur JSON d'Order
+ */
+public class OrderJsonEncoderTests {
+    private static final ResolvableType ORDER_TYPE = ResolvableType.forClass(Order.class);
+    private final OrderJsonEncoder encoder = new OrderJsonEncoder();
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private static Order order(long id) {
+        return new Order(id, "1234567890", "Title - Author", 9.90, 2, OrderStatus.ACCEPTED,
+                Instant.parse("2024-05-01T10:15:30Z"), Instant.parse("2024-05-01T10:15:30Z"), "bjorn", "bjorn", 1);
+    }
+
+    private String encode(Flux<Order> orders, MediaType mediaType) {
+        return encoder.encode(orders, DefaultDataBufferFactory.sharedInstance, ORDER_TYPE, mediaType, null)
+                .map(OrderJsonEncoderTests::asString)
+                .collectList()
+                .map(chunks -> String.join("", chunks))
+                .block();
+    }
+
+    private static String asString(DataBuffer buffer) {
+        String value = buffer.toString(StandardCharsets.UTF_8);
+        DataBufferUtils.release(buffer);
+        return value;
+    }
+
+    @Test
+    void whenFluxEncodedAsJsonThenArrayReadableByJackson() throws Exception {
+        String json = encode(Flux.just(order(1), order(2)), MediaType.APPLICATION_JSON);
+
+        Order[] orders = objectMapper.readValue(json, Order[].class);
+        assertThat(Arrays.stream(orders).map(Order::id)).containsExactly(1L, 2L);
+        assertThat(orders[0].bookName()).isEqualTo("Title - Author");
+        assertThat(orders[0].createdDate()).isEqualTo(Instant.parse("2024-05-01T10:15:30Z"));
+        //les champs d'audit ne sont pas exposés
+        assertThat(json).doesNotContain("createdBy", "lastModifiedBy", "version");
+    }
+
+    @Test
+    void whenEmptyFluxEncodedAsJsonThenEmptyArray() {
+        assertThat(encode(Flux.empty(), MediaType.APPLICATION_JSON)).isEqualTo("[]");
+    }
+
+    @Test
+    void whenFluxEncodedAsNdjsonThenOneOrderPerLine() throws Exception {
+        String ndjson = encode(Flux.just(order(1), order(2)), MediaType.APPLICATION_NDJSON);
+
+        String[] lines = ndjson.split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(objectMapper.readValue(lines[1], Order.class).id()).isEqualTo(2L);
+    }
+
+    @Test
+    void whenMonoEncodedThenSingleObject() throws Exception {
+        String json = encoder.encode(Mono.just(order(3)), DefaultDataBufferFactory.sharedInstance, ORDER_TYPE, MediaType.APPLICATION_JSON, null)
+                .map(OrderJsonEncoderTests::asString)
+                .blockFirst();
+
+        assertThat(objectMapper.readValue(json, Order.class).status()).isEqualTo(OrderStatus.ACCEPTED);
+    }
+
+    @Test
+    void whenRejectedOrderThenNullFieldsEncoded() throws Exception {
+        String json = encode(Flux.just(OrderService.buildRejectedOrder("1234567890", 1)), MediaType.APPLICATION_JSON);
+
+        Order[] orders = objectMapper.readValue(json, Order[].class);
+        assertThat(orders[0].bookName()).isNull();
+        assertThat(orders[0].id()).isNull();
+    }
+
+}
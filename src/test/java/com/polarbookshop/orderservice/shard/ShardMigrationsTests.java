@@ -0,0 +1,103 @@
+package com.polarbookshop.orderservice.shard;
+
+import com.polarbookshop.orderservice.config.ShardingProperties;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import reactor.test.StepVerifier;
+
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * tests d'intégration des migrations des shards : plage d'ids propre à chaque shard (V3) et localisation des commandes (V5)
+ */
+@Testcontainers
+public class ShardMigrationsTests {
+    private static final List<String> DATABASES = List.of("shard0", "shard1", "shard2");
+
+    @Container
+    static PostgreSQLContainer<?> postgreSQLContainer = new PostgreSQLContainer<>("postgres:16.3");
+
+    private static List<ConnectionFactory> shards;
+
+    @BeforeAll
+    static void migrateShards() throws SQLException {
+        //une base par shard dans le même serveur Postgres
+        try (var connection = DriverManager.getConnection(postgreSQLContainer.getJdbcUrl(),
+                postgreSQLContainer.getUsername(), postgreSQLContainer.getPassword());
+             var statement = connection.createStatement()) {
+            for (String database : DATABASES) {
+                statement.execute("CREATE DATABASE " + database);
+            }
+        }
+        new ShardMigrations(DATABASES.stream()
+                .map(database -> new ShardingProperties.Shard(null, jdbcUrl(database),
+                        postgreSQLContainer.getUsername(), postgreSQLContainer.getPassword()))
+                .toList())
+                .afterPropertiesSet();
+        shards = DATABASES.stream()
+                .map(ShardMigrationsTests::connectionFactory)
+                .toList();
+    }
+
+    @Test
+    void whenShardMigratedThenIdsCarryShardIndex() {
+        IntStream.range(0, DATABASES.size()).forEach(shard ->
+                StepVerifier.create(DatabaseClient.create(shards.get(shard))
+                                .sql("SELECT nextval('orders_id_seq') AS id")
+                                .map(row -> row.get("id", Long.class))
+                                .one())
+                        .expectNextMatches(id -> ShardKeys.shardOf(id) == shard
+                                //le shard 0 (base historique) conserve sa séquence
+                                && (shard > 0 || id < 1L << ShardKeys.SHARD_ID_SHIFT))
+                        .verifyComplete());
+    }
+
+    @Test
+    void whenOrderNotRelocatedThenShardOfIdReturned() {
+        long orderId = (2L << ShardKeys.SHARD_ID_SHIFT) + 1;
+        var locator = new ShardLocator(shards);
+
+        StepVerifier.create(locator.shardOf(orderId))
+                .expectNext(2)
+                .verifyComplete();
+    }
+
+    @Test
+    void whenOrderRelocatedThenRelocationShardReturned() {
+        long orderId = (1L << ShardKeys.SHARD_ID_SHIFT) + 42;
+        var locator = new ShardLocator(shards);
+
+        //déplacée sur le shard 2, puis revenue sur son shard de création
+        StepVerifier.create(locator.relocate(orderId, 2).then(locator.shardOf(orderId)))
+                .expectNext(2)
+                .verifyComplete();
+        StepVerifier.create(locator.relocate(orderId, 1).then(locator.shardOf(orderId)))
+                .expectNext(1)
+                .verifyComplete();
+    }
+
+    private static String jdbcUrl(String database) {
+        return String.format("jdbc:postgresql://%s:%s/%s",
+                postgreSQLContainer.getHost(),
+                postgreSQLContainer.getMappedPort(PostgreSQLContainer.POSTGRESQL_PORT),
+                database);
+    }
+
+    private static ConnectionFactory connectionFactory(String database) {
+        return ConnectionFactories.get(String.format("r2dbc:postgresql://%s:%s@%s:%s/%s",
+                postgreSQLContainer.getUsername(),
+                postgreSQLContainer.getPassword(),
+                postgreSQLContainer.getHost(),
+                postgreSQLContainer.getMappedPort(PostgreSQLContainer.POSTGRESQL_PORT),
+                database));
+    }
+}
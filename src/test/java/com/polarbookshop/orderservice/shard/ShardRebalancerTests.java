@@ -0,0 +1,136 @@
+package com.polarbookshop.orderservice.shard;
+
+import com.polarbookshop.orderservice.config.ShardingProperties;
+import com.polarbookshop.orderservice.order.domain.OrderStatus;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * tests d'intégration du rééquilibrage : toutes les commandes d'un utilisateur déplacé changent de shard
+ * et restent localisables par leur id
+ */
+@Testcontainers
+public class ShardRebalancerTests {
+    private static final List<String> DATABASES = List.of("rebalance0", "rebalance1");
+
+    @Container
+    static PostgreSQLContainer<?> postgreSQLContainer = new PostgreSQLContainer<>("postgres:16.3");
+
+    private static List<ConnectionFactory> shards;
+
+    @BeforeAll
+    static void migrateShards() throws SQLException {
+        try (var connection = DriverManager.getConnection(postgreSQLContainer.getJdbcUrl(),
+                postgreSQLContainer.getUsername(), postgreSQLContainer.getPassword());
+             var statement = connection.createStatement()) {
+            for (String database : DATABASES) {
+                statement.execute("CREATE DATABASE " + database);
+            }
+        }
+        new ShardMigrations(DATABASES.stream()
+                .map(database -> new ShardingProperties.Shard(null, String.format("jdbc:postgresql://%s:%s/%s",
+                        postgreSQLContainer.getHost(), postgreSQLContainer.getMappedPort(PostgreSQLContainer.POSTGRESQL_PORT), database),
+                        postgreSQLContainer.getUsername(), postgreSQLContainer.getPassword()))
+                .toList())
+                .afterPropertiesSet();
+        shards = DATABASES.stream()
+                .map(database -> ConnectionFactories.get(String.format("r2dbc:postgresql://%s:%s@%s:%s/%s",
+                        postgreSQLContainer.getUsername(), postgreSQLContainer.getPassword(), postgreSQLContainer.getHost(),
+                        postgreSQLContainer.getMappedPort(PostgreSQLContainer.POSTGRESQL_PORT), database)))
+                .toList();
+    }
+
+    @Test
+    void whenUserMovedThenAllOrdersMovedAndLocatable() {
+        var ring = new ShardRing(2, 128);
+        String userId = userOfShard(ring, 1);
+        var locator = new ShardLocator(shards);
+        var rebalancer = new ShardRebalancer(ring, shards, locator, Duration.ZERO);
+
+        //commandes créées sur le shard 0 avant l'ajout du shard 1, dont une pas encore expédiée
+        List<Long> orderIds = Flux.concat(
+                        insertOrder(0, userId, OrderStatus.ACCEPTED),
+                        insertOrder(0, userId, OrderStatus.DISPATCHED))
+                .collectList()
+                .block();
+
+        StepVerifier.create(rebalancer.rebalance())
+                .assertNext(report -> assertThat(report.moved()).isEqualTo(2))
+                .verifyComplete();
+
+        StepVerifier.create(countOrders(0, userId))
+                .expectNext(0L)
+                .verifyComplete();
+        StepVerifier.create(DatabaseClient.create(shards.get(1))
+                        .sql("SELECT status FROM orders WHERE created_by = :userId ORDER BY id")
+                        .bind("userId", userId)
+                        .map(row -> row.get("status", String.class))
+                        .all())
+                .expectNext(OrderStatus.ACCEPTED.name(), OrderStatus.DISPATCHED.name())
+                .verifyComplete();
+        //les ids encodent toujours le shard 0 : la relocalisation y est enregistrée
+        StepVerifier.create(Flux.fromIterable(orderIds).concatMap(locator::shardOf))
+                .expectNext(1, 1)
+                .verifyComplete();
+
+        //exécution relancée : plus rien à déplacer
+        StepVerifier.create(rebalancer.rebalance())
+                .assertNext(report -> assertThat(report.moved()).isZero())
+                .verifyComplete();
+    }
+
+    @Test
+    void whenUserNotMovedThenOrdersStayInPlace() {
+        var ring = new ShardRing(2, 128);
+        String userId = userOfShard(ring, 0);
+        var rebalancer = new ShardRebalancer(ring, shards, new ShardLocator(shards), Duration.ZERO);
+
+        StepVerifier.create(insertOrder(0, userId, OrderStatus.ACCEPTED)
+                        .then(rebalancer.rebalance())
+                        .then(countOrders(0, userId)))
+                .expectNext(1L)
+                .verifyComplete();
+    }
+
+    private static Mono<Long> insertOrder(int shard, String userId, OrderStatus status) {
+        return DatabaseClient.create(shards.get(shard))
+                .sql("INSERT INTO orders (book_isbn, book_name, book_price, quantity, status, created_date, last_modified_date, " +
+                        "created_by, last_modified_by, version) " +
+                        "VALUES ('1234567891', 'Northern Lights', 9.90, 1, :status, now(), now(), :userId, :userId, 1) RETURNING id")
+                .bind("status", status.name())
+                .bind("userId", userId)
+                .map(row -> row.get("id", Long.class))
+                .one();
+    }
+
+    private static Mono<Long> countOrders(int shard, String userId) {
+        return DatabaseClient.create(shards.get(shard))
+                .sql("SELECT count(*) AS orders FROM orders WHERE created_by = :userId")
+                .bind("userId", userId)
+                .map(row -> row.get("orders", Long.class))
+                .one();
+    }
+
+    private static String userOfShard(ShardRing ring, int shard) {
+        for (int i = 0; ; i++) {
+            String userId = "user-" + System.nanoTime() + "-" + i;
+            if (ring.shardFor(userId) == shard) { return userId; }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.polarbookshop.orderservice.shard;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * tests unitaires de la répartition des utilisateurs sur les shards
+ */
+public class ShardRingTests {
+
+    @Test
+    void whenSingleShardThenAlwaysShardZero() {
+        var ring = new ShardRing(1, 128);
+        assertThat(ring.shardFor("bjorn")).isZero();
+        assertThat(ring.shardFor(null)).isZero();
+    }
+
+    @Test
+    void whenSeveralShardsThenEveryShardReceivesUsers() {
+        var ring = new ShardRing(4, 128);
+        Map<Integer, Integer> usersPerShard = new HashMap<>();
+        IntStream.range(0, 10_000)
+                .forEach(i -> usersPerShard.merge(ring.shardFor("user-" + i), 1, Integer::sum));
+
+        assertThat(usersPerShard).hasSize(4);
+        //aucun shard ne doit recevoir moins de la moitié de sa part théorique
+        assertThat(usersPerShard.values()).allMatch(count -> count > 10_000 / 4 / 2);
+    }
+
+    @Test
+    void whenShardAddedThenOnlyMovedUsersGoToNewShard() {
+        var before = new ShardRing(3, 128);
+        var after = new ShardRing(4, 128);
+
+        long moved = IntStream.range(0, 10_000)
+                .mapToObj(i -> "user-" + i)
+                .filter(user -> before.shardFor(user) != after.shardFor(user))
+                .peek(user -> assertThat(after.shardFor(user)).isEqualTo(3))
+                .count();
+
+        //hachage consistant : environ 1/4 des utilisateurs change de shard, et non la quasi-totalité
+        assertThat(moved).isBetween(1_000L, 4_000L);
+    }
+
+    @Test
+    void whenOrderIdCarriesShardThenShardResolved() {
+        assertThat(ShardKeys.shardOf(42L)).isZero();
+        assertThat(ShardKeys.shardOf((2L << ShardKeys.SHARD_ID_SHIFT) + 1)).isEqualTo(2);
+        assertThat(ShardKeys.shardOf(null)).isZero();
+    }
+}
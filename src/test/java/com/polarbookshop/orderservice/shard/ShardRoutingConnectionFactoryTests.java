@@ -0,0 +1,101 @@
+package com.polarbookshop.orderservice.shard;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * tests unitaires du choix du shard : shard explicite, puis commande visée, puis utilisateur authentifié, puis shard 0
+ */
+public class ShardRoutingConnectionFactoryTests {
+    private final ShardRing ring = new ShardRing(3, 128);
+    private final List<ConnectionFactory> shards = List.of(mock(ConnectionFactory.class), mock(ConnectionFactory.class), mock(ConnectionFactory.class));
+    private final List<Connection> connections = List.of(mock(Connection.class), mock(Connection.class), mock(Connection.class));
+    private final ShardLocator locator = mock(ShardLocator.class);
+    private ShardRoutingConnectionFactory factory;
+
+    @BeforeEach
+    void setUp() {
+        for (int shard = 0; shard < shards.size(); shard++) {
+            doReturn(Mono.just(connections.get(shard))).when(shards.get(shard)).create();
+        }
+        factory = new ShardRoutingConnectionFactory(ring, shards, locator);
+        factory.afterPropertiesSet();
+    }
+
+    @Test
+    void whenShardInContextThenShardUsed() {
+        StepVerifier.create(Mono.from(factory.create())
+                        .contextWrite(ShardKeys.forShard(2))
+                        //le shard explicite l'emporte sur l'utilisateur authentifié
+                        .contextWrite(ReactiveSecurityContextHolder.withAuthentication(authenticated(userOfShard(1)))))
+                .expectNext(connections.get(2))
+                .verifyComplete();
+    }
+
+    @Test
+    void whenOrderInContextThenLocatedShardUsed() {
+        long orderId = (1L << ShardKeys.SHARD_ID_SHIFT) + 7;
+        //commande créée sur le shard 1 puis déplacée sur le shard 2
+        when(locator.shardOf(orderId)).thenReturn(Mono.just(2));
+
+        StepVerifier.create(Mono.from(factory.create())
+                        .contextWrite(ShardKeys.forOrder(orderId))
+                        .contextWrite(ReactiveSecurityContextHolder.withAuthentication(authenticated(userOfShard(0)))))
+                .expectNext(connections.get(2))
+                .verifyComplete();
+    }
+
+    @Test
+    void whenAuthenticatedUserThenShardOfUserUsed() {
+        String userId = userOfShard(1);
+
+        StepVerifier.create(Mono.from(factory.create())
+                        .contextWrite(ReactiveSecurityContextHolder.withAuthentication(authenticated(userId))))
+                .expectNext(connections.get(1))
+                .verifyComplete();
+        verify(locator, never()).shardOf(anyLong());
+    }
+
+    @Test
+    void whenNotAuthenticatedThenShardZeroUsed() {
+        var anonymous = new TestingAuthenticationToken(userOfShard(2), null);
+        anonymous.setAuthenticated(false);
+
+        StepVerifier.create(Mono.from(factory.create())
+                        .contextWrite(ReactiveSecurityContextHolder.withAuthentication(anonymous)))
+                .expectNext(connections.get(0))
+                .verifyComplete();
+    }
+
+    @Test
+    void whenNoKeyThenShardZeroUsed() {
+        StepVerifier.create(Mono.from(factory.create()))
+                .expectNext(connections.get(0))
+                .verifyComplete();
+    }
+
+    private static TestingAuthenticationToken authenticated(String userId) {
+        return new TestingAuthenticationToken(userId, null, "ROLE_customer");
+    }
+
+    private String userOfShard(int shard) {
+        for (int i = 0; ; i++) {
+            if (ring.shardFor("user-" + i) == shard) { return "user-" + i; }
+        }
+    }
+}
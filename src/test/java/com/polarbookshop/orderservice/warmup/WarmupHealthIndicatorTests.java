@@ -0,0 +1,101 @@
+package com.polarbookshop.orderservice.warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.polarbookshop.orderservice.config.WarmupProperties;
+import io.r2dbc.spi.ConnectionFactory;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * tests unitaires de la readiness : le pod ne reçoit du trafic qu'une fois le warm-up terminé
+ */
+public class WarmupHealthIndicatorTests {
+    private final ExchangeFunction catalogService = mock(ExchangeFunction.class);
+
+    @Test
+    void whenWarmupNotStartedThenOutOfService() {
+        var indicator = new WarmupHealthIndicator(warmupRunner(new WarmupProperties(true, 10, Duration.ofMinutes(1), 1, null)));
+
+        assertThat(indicator.health().getStatus()).isEqualTo(Status.OUT_OF_SERVICE);
+    }
+
+    @Test
+    void whenWarmupRunningThenOutOfService() {
+        //catalog-service ne répond pas : le warm-up reste dans la phase d'ouverture des connexions
+        when(catalogService.exchange(any())).thenReturn(Mono.never());
+        var runner = warmupRunner(new WarmupProperties(true, 10, Duration.ofMinutes(1), 1, null));
+        var indicator = new WarmupHealthIndicator(runner);
+
+        runner.warmUp();
+
+        assertThat(indicator.health().getStatus()).isEqualTo(Status.OUT_OF_SERVICE);
+        assertThat(runner.progress().snapshot().phase()).isEqualTo(WarmupProgress.Phase.CATALOG_CONNECTIONS);
+    }
+
+    @Test
+    void whenWarmupCompletedThenUp() {
+        when(catalogService.exchange(any())).thenReturn(Mono.just(ClientResponse.create(HttpStatus.NOT_FOUND).build()));
+        var runner = warmupRunner(new WarmupProperties(true, 10, Duration.ofMinutes(1), 1, null));
+        var indicator = new WarmupHealthIndicator(runner);
+
+        runner.warmUp();
+
+        assertThat(awaitStatus(indicator, Status.UP)).isEqualTo(Status.UP);
+        assertThat(runner.progress().snapshot().iterations()).isEqualTo(10);
+        //une seule requête par connexion : une réponse 404 n'est ni rejouée ni en échec
+        verify(catalogService).exchange(any());
+    }
+
+    @Test
+    void whenWarmupDisabledThenUpImmediately() {
+        var runner = warmupRunner(new WarmupProperties(false, 10, Duration.ofMinutes(1), 1, null));
+        var indicator = new WarmupHealthIndicator(runner);
+
+        runner.warmUp();
+
+        assertThat(indicator.health().getStatus()).isEqualTo(Status.UP);
+        verifyNoInteractions(catalogService);
+    }
+
+    @Test
+    void whenTimeBudgetElapsedThenUp() {
+        //catalog-service ne répond pas : seul le budget de temps termine la phase
+        when(catalogService.exchange(any())).thenReturn(Mono.never());
+        var runner = warmupRunner(new WarmupProperties(true, 10, Duration.ofMillis(200), 1, null));
+        var indicator = new WarmupHealthIndicator(runner);
+
+        runner.warmUp();
+
+        assertThat(awaitStatus(indicator, Status.UP)).isEqualTo(Status.UP);
+        assertThat(runner.progress().snapshot().iterations()).isZero();
+    }
+
+    private WarmupRunner warmupRunner(WarmupProperties properties) {
+        return new WarmupRunner(properties, mock(ConnectionFactory.class), WebClient.builder().exchangeFunction(catalogService).build(),
+                Validation.buildDefaultValidatorFactory().getValidator(), new ObjectMapper().findAndRegisterModules());
+    }
+
+    //interroge l'indicateur jusqu'au statut attendu (5 s max)
+    private static Status awaitStatus(WarmupHealthIndicator indicator, Status expected) {
+        return Flux.interval(Duration.ofMillis(20))
+                .map(tick -> indicator.health().getStatus())
+                .filter(expected::equals)
+                .blockFirst(Duration.ofSeconds(5));
+    }
+}